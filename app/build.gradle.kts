@@ -20,6 +20,8 @@ android {
         // 从gradle.properties注入到BuildConfig
         buildConfigField("String", "API_KEY", "\"${project.property("API_KEY")}\"")
         buildConfigField("String", "MODEL_NAME", "\"${project.property("MODEL_NAME")}\"")
+        // 是否为宏基准测试构建，只有benchmark构建类型接受测试注入的数据
+        buildConfigField("boolean", "BENCHMARK", "false")
     }
 
     buildTypes {
@@ -30,6 +32,14 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // 宏基准测试使用的构建类型：与release相同的优化，使用debug签名以便直接安装
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+            isDebuggable = false
+            buildConfigField("boolean", "BENCHMARK", "true")
+        }
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
@@ -48,6 +58,8 @@ dependencies {
     implementation(libs.constraintlayout)
     implementation(libs.room.common.jvm)
     testImplementation(libs.junit)
+    // 用于在单元测试中回放HTTP响应
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.11.0")
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation("com.github.bumptech.glide:glide:4.16.0")
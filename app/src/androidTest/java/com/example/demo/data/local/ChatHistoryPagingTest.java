@@ -0,0 +1,123 @@
+package com.example.demo.data.local;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.demo.data.model.ChatHistory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 聊天记录键集分页测试
+ * 验证按(timestamp, id)翻页时最新的一页在前，时间戳相同的记录既不重复也不遗漏
+ */
+@RunWith(AndroidJUnit4.class)
+public class ChatHistoryPagingTest {
+
+    private static final int PAGE_SIZE = 30;
+
+    private AppDatabase database;
+    private ChatHistoryDao dao;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        dao = database.chatHistoryDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    /**
+     * 插入一条聊天记录
+     */
+    private static ChatHistory row(String personaType, long personaId, long timestamp) {
+        return new ChatHistory(personaId, personaType, UUID.randomUUID().toString(), "消息" + timestamp,
+                timestamp % 2 == 0, 0, null, timestamp, true);
+    }
+
+    @Test
+    public void pages_walkBackwardsWithoutGapsOrDuplicates() {
+        List<ChatHistory> rows = new ArrayList<>();
+        for (int i = 0; i < 75; i++) {
+            // 每3条记录共用一个时间戳，翻页边界会落在时间戳相同的记录之间
+            rows.add(row("user", 1, 1000 + i / 3));
+            // 其他Persona的记录不应出现在结果中
+            rows.add(row("other", 1, 1000 + i / 3));
+        }
+        dao.insertAll(rows);
+
+        List<ChatHistory> all = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        long beforeTimestamp = Long.MAX_VALUE;
+        long beforeId = Long.MAX_VALUE;
+        while (true) {
+            List<ChatHistory> page = dao.getChatHistoryPageBefore("user", 1, beforeTimestamp, beforeId, PAGE_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+            pageSizes.add(page.size());
+            all.addAll(page);
+            ChatHistory oldest = page.get(page.size() - 1);
+            beforeTimestamp = oldest.getTimestamp();
+            beforeId = oldest.getId();
+        }
+
+        assertEquals(List.of(30, 30, 15), pageSizes);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < all.size(); i++) {
+            ChatHistory current = all.get(i);
+            assertEquals("user", current.getPersonaType());
+            assertTrue("重复的记录: " + current.getId(), ids.add(current.getId()));
+            if (i > 0) {
+                // 严格按(timestamp, id)从新到旧排列
+                ChatHistory previous = all.get(i - 1);
+                assertTrue(previous.getTimestamp() > current.getTimestamp()
+                        || (previous.getTimestamp() == current.getTimestamp() && previous.getId() > current.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void cursor_returnsNewestFirstInPageOrder() {
+        List<ChatHistory> rows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rows.add(row("user", 2, 2000 + i / 2));
+        }
+        dao.insertAll(rows);
+
+        List<Long> cursorIds = new ArrayList<>();
+        try (Cursor cursor = dao.getChatHistoryCursorNewestFirst("user", 2)) {
+            int idIndex = cursor.getColumnIndexOrThrow("id");
+            while (cursor.moveToNext()) {
+                cursorIds.add(cursor.getLong(idIndex));
+            }
+        }
+        List<Long> pageIds = new ArrayList<>();
+        for (ChatHistory chatHistory : dao.getChatHistoryPageBefore("user", 2, Long.MAX_VALUE, Long.MAX_VALUE, 10)) {
+            pageIds.add(chatHistory.getId());
+        }
+
+        // 冷启动读取的第一页与之后键集翻页的顺序一致，翻页游标可以直接衔接
+        assertEquals(pageIds, cursorIds);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.demo.data.local;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.demo.data.model.ChatHistory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * chat_history查询耗时测试
+ * 表中总记录数从1万增长到100万时，按Persona分页查询和按message_id更新的耗时应基本不变
+ * 同时检查查询计划使用了索引且不需要临时排序
+ * 数据量较大，在真机上运行约需一分钟
+ */
+@RunWith(AndroidJUnit4.class)
+public class ChatHistoryQueryBenchmarkTest {
+
+    private static final String TAG = "ChatHistoryBenchmark";
+
+    // 测试数据库文件名，测试结束后删除
+    private static final String DATABASE_NAME = "chat_history_benchmark.db";
+
+    // 每个数据量下重复执行查询的次数
+    private static final int ITERATIONS = 50;
+
+    // 每次批量插入的记录数
+    private static final int INSERT_BATCH = 10_000;
+
+    // 参与测试的Persona数量，记录平均分布在这些Persona之间
+    private static final int PERSONA_COUNT = 100;
+
+    private Context context;
+    private AppDatabase database;
+    private ChatHistoryDao dao;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        // 使用文件数据库，100万条记录放在内存数据库中会占用过多内存
+        database = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME).build();
+        dao = database.chatHistoryDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void queryPlans_useIndicesWithoutTempSort() {
+        assertUsesIndex("SELECT * FROM chat_history WHERE persona_type = 'user' AND persona_id = 1 "
+                + "ORDER BY timestamp DESC, id DESC");
+        assertUsesIndex("SELECT * FROM chat_history WHERE persona_type = 'user' AND persona_id = 1 "
+                + "AND (timestamp < 100 OR (timestamp = 100 AND id < 5)) ORDER BY timestamp DESC, id DESC LIMIT 30");
+        assertUsesIndex("UPDATE chat_history SET is_typewriter_complete = 1 WHERE message_id = 'm'");
+    }
+
+    @Test
+    public void queryTime_staysFlatFrom10kTo1mRows() {
+        int[] sizes = {10_000, 100_000, 1_000_000};
+        long[] pageNanos = new long[sizes.length];
+        long[] updateNanos = new long[sizes.length];
+        int inserted = 0;
+        for (int s = 0; s < sizes.length; s++) {
+            inserted = insertRows(inserted, sizes[s]);
+            pageNanos[s] = medianNanos(() -> {
+                List<ChatHistory> page = dao.getChatHistoryPageBefore("user", PERSONA_COUNT / 2,
+                        Long.MAX_VALUE, Long.MAX_VALUE, 30);
+                assertFalse(page.isEmpty());
+            });
+            int rowCount = inserted;
+            updateNanos[s] = medianNanos(() -> dao.updateTypewriterStatus(messageId(rowCount / 2), true));
+            Log.i(TAG, sizes[s] + " rows: page=" + pageNanos[s] / 1000 + "us, update=" + updateNanos[s] / 1000 + "us");
+        }
+
+        // 索引查找的代价随表大小按对数增长，100倍的数据量下耗时应远小于线性增长
+        assertFlat("page", pageNanos);
+        assertFlat("update", updateNanos);
+    }
+
+    /**
+     * 插入记录直到总数达到target，返回插入后的总数
+     */
+    private int insertRows(int from, int target) {
+        int next = from;
+        while (next < target) {
+            int end = Math.min(next + INSERT_BATCH, target);
+            List<ChatHistory> batch = new ArrayList<>(end - next);
+            for (int i = next; i < end; i++) {
+                batch.add(new ChatHistory(i % PERSONA_COUNT, "user", messageId(i), "第" + i + "条消息 message " + i,
+                        i % 2 == 0, 0, null, 1_000_000L + i, true));
+            }
+            dao.insertAll(batch);
+            next = end;
+        }
+        return next;
+    }
+
+    private static String messageId(int index) {
+        return "message-" + index;
+    }
+
+    /**
+     * 先预热再重复执行，返回耗时的中位数
+     */
+    private static long medianNanos(Runnable query) {
+        for (int i = 0; i < 5; i++) {
+            query.run();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[ITERATIONS / 2];
+    }
+
+    /**
+     * 100万条记录时的耗时不超过1万条时的5倍（另留1毫秒余量应对计时抖动）
+     */
+    private static void assertFlat(String name, long[] nanos) {
+        long first = nanos[0];
+        long last = nanos[nanos.length - 1];
+        assertTrue(name + " 耗时随记录数增长: " + first / 1000 + "us -> " + last / 1000 + "us",
+                last <= first * 5 + 1_000_000);
+    }
+
+    /**
+     * 检查语句的查询计划使用了索引，且没有全表扫描和临时排序
+     */
+    private void assertUsesIndex(String sql) {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql)) {
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detailIndex)).append('\n');
+            }
+        }
+        String detail = plan.toString();
+        assertTrue(detail, detail.contains("USING INDEX") || detail.contains("USING COVERING INDEX"));
+        assertFalse(detail, detail.contains("SCAN chat_history") || detail.contains("SCAN TABLE chat_history"));
+        assertFalse(detail, detail.contains("TEMP B-TREE"));
+    }
+}
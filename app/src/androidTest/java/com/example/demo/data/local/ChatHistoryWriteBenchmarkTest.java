@@ -0,0 +1,92 @@
+package com.example.demo.data.local;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.demo.data.model.ChatHistory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 聊天记录写入吞吐量测试
+ * 对比每条记录单独提交事务（原来的写入方式）和写入队列按窗口合并后一个事务批量提交的每秒写入行数
+ */
+@RunWith(AndroidJUnit4.class)
+public class ChatHistoryWriteBenchmarkTest {
+
+    private static final String TAG = "ChatHistoryWriteBench";
+
+    // 测试数据库文件名，使用文件数据库才能反映每个事务的fsync开销
+    private static final String DATABASE_NAME = "chat_history_write_benchmark.db";
+
+    // 每种方式写入的记录数
+    private static final int ROWS = 1000;
+
+    // 批量写入时每个事务包含的记录数，对应写入队列一个合并窗口内积累的消息
+    private static final int BATCH_SIZE = 50;
+
+    private Context context;
+    private AppDatabase database;
+    private ChatHistoryDao dao;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        database = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME).build();
+        dao = database.chatHistoryDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    private static List<ChatHistory> rows(long personaId) {
+        List<ChatHistory> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new ChatHistory(personaId, "user", UUID.randomUUID().toString(),
+                    "第" + i + "条消息，包含一些 mixed 中英文内容", i % 2 == 0, 0, null,
+                    System.currentTimeMillis() + i, false));
+        }
+        return rows;
+    }
+
+    @Test
+    public void batchedInserts_outperformPerRowTransactions() {
+        List<ChatHistory> perRowRows = rows(1);
+        long perRowStart = System.nanoTime();
+        for (ChatHistory row : perRowRows) {
+            dao.insert(row);
+        }
+        long perRowNanos = System.nanoTime() - perRowStart;
+
+        List<ChatHistory> batchedRows = rows(2);
+        long batchedStart = System.nanoTime();
+        for (int start = 0; start < ROWS; start += BATCH_SIZE) {
+            List<ChatHistory> batch = batchedRows.subList(start, Math.min(start + BATCH_SIZE, ROWS));
+            database.runInTransaction(() -> dao.insertAll(batch));
+        }
+        long batchedNanos = System.nanoTime() - batchedStart;
+
+        double perRowRate = ROWS * 1e9 / perRowNanos;
+        double batchedRate = ROWS * 1e9 / batchedNanos;
+        Log.i(TAG, String.format("per-row: %.0f rows/s, batched(%d): %.0f rows/s",
+                perRowRate, BATCH_SIZE, batchedRate));
+        assertTrue("批量写入没有更快: " + perRowRate + " vs " + batchedRate, batchedRate > perRowRate);
+    }
+}
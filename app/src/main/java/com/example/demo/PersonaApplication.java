@@ -0,0 +1,54 @@
+package com.example.demo;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.example.demo.data.remote.ApiClient;
+import com.example.demo.data.remote.ApiClientProfile;
+import com.example.demo.data.remote.ApiMetrics;
+
+/**
+ * 应用入口类
+ * 在任何页面和仓库创建之前完成全局初始化
+ */
+public class PersonaApplication extends Application {
+
+    // API调用指标的日志标签
+    private static final String METRICS_TAG = "ApiMetrics";
+
+    /**
+     * 应用进程创建时调用
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // 配置网络客户端，必须在第一次使用ApiClient之前完成
+        ApiClient.configure(createClientProfile());
+        // 在后台预先建立到API服务器的连接，首次聊天时可以直接复用
+        ApiClient.prewarmConnection();
+    }
+
+    /**
+     * 系统要求释放内存时调用
+     * 调试版本在应用退到后台时打印API调用指标
+     * @param level 内存级别
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (BuildConfig.DEBUG && level == TRIM_MEMORY_UI_HIDDEN) {
+            Log.d(METRICS_TAG, ApiMetrics.getInstance().getSnapshot().toString());
+        }
+    }
+
+    /**
+     * 创建网络客户端配置
+     * @return 客户端配置
+     */
+    private static ApiClientProfile createClientProfile() {
+        ApiClientProfile profile = ApiClientProfile.defaultProfile();
+        // 压缩较大的请求体，服务器不支持时拦截器会自动回退为不压缩
+        profile.setRequestCompressionEnabled(true);
+        return profile;
+    }
+}
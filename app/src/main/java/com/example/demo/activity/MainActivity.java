@@ -9,6 +9,8 @@ import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
 
+import com.example.demo.BuildConfig;
+import com.example.demo.data.repository.OtherPersonaPostRepository;
 import com.example.demo.fragment.UserFollowedListFragment;
 import com.example.demo.fragment.UserPersonaFragment;
 import com.example.demo.fragment.UserProfileFragment;
@@ -39,6 +41,9 @@ public class MainActivity extends AppCompatActivity {
     private static final String TAG_PERSONA = "USER_PERSONA";
     private static final String TAG_PROFILE = "PROFILE";
 
+    // 宏基准测试启动时传入的帖子数量，只在benchmark构建中生效
+    public static final String EXTRA_BENCHMARK_POST_COUNT = "benchmark_post_count";
+
     /**
      * Activity创建时调用，进行初始化操作
      * @param savedInstanceState 保存的Activity状态
@@ -46,9 +51,18 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+
         // 使用视图绑定初始化布局，避免findViewById的性能开销和类型转换错误
         ActivityMainBinding activityMainBinding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(activityMainBinding.getRoot());
+
+        if (BuildConfig.BENCHMARK) {
+            // 宏基准测试用大量富文本帖子替换模拟数据，测量滑动时的帧耗时
+            int benchmarkPostCount = getIntent().getIntExtra(EXTRA_BENCHMARK_POST_COUNT, 0);
+            if (benchmarkPostCount > 0) {
+                OtherPersonaPostRepository.getInstance().loadBenchmarkPosts(benchmarkPostCount);
+            }
+        }
         
         // 初始化所有Fragment实例
         socialSquareFragment = new SocialSquareFragment();
@@ -3,14 +3,20 @@ package com.example.demo.activity;
 import android.os.Bundle;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.demo.adapter.PersonaChatAdapter;
 import com.example.demo.viewmodel.OtherPersonaChatViewModel;
 import com.example.demo.model.OtherPersona;
 import com.example.demo.databinding.ActivityChatBinding;
+import com.example.demo.model.ChatMessage;
+import com.example.demo.utils.AvatarLoader;
+
+import java.util.UUID;
 
 /**
  * 与其他Persona聊天的活动界面
@@ -27,6 +33,9 @@ public class OtherPersonaChatActivity extends AppCompatActivity {
     // 聊天消息适配器，用于显示聊天消息
     private PersonaChatAdapter personaChatAdapter;
 
+    // 当前列表最后一条消息的ID，用于判断是否有新消息需要滚动到底部
+    private UUID lastMessageId;
+
     // 当前聊天的OtherPersona
     private OtherPersona personaToChat;
 
@@ -75,9 +84,19 @@ public class OtherPersonaChatActivity extends AppCompatActivity {
         // 设置观察者，观察聊天历史变化
         otherPersonaChatViewModel.getChatHistory().observe(this, chatMessages -> {
             if (chatMessages != null) {
-                personaChatAdapter.submitList(chatMessages);
-                // 滚动到最新消息
-                activityChatBinding.rvChatMessages.scrollToPosition(chatMessages.size() - 1);
+                // 消息在后台预先渲染后才提交，提交完成后再滚动，保证目标位置已存在
+                personaChatAdapter.submitPrerendered(chatMessages, () -> {
+                    if (chatMessages.isEmpty()) {
+                        return;
+                    }
+                    // 只有末尾出现新消息或流式回复仍在增长时才滚动到底部，向上加载更早的消息时保持当前位置
+                    ChatMessage lastMessage = chatMessages.get(chatMessages.size() - 1);
+                    if (!lastMessage.getId().equals(lastMessageId) || lastMessage.isStreaming()) {
+                        lastMessageId = lastMessage.getId();
+                        // 滚动到最新消息
+                        activityChatBinding.rvChatMessages.scrollToPosition(chatMessages.size() - 1);
+                    }
+                });
             }
         });
     }
@@ -114,6 +133,18 @@ public class OtherPersonaChatActivity extends AppCompatActivity {
         LinearLayoutManager layoutManager = new LinearLayoutManager(this);
         layoutManager.setStackFromEnd(true); // 从底部开始显示消息
         activityChatBinding.rvChatMessages.setLayoutManager(layoutManager);
+        // 滑动时预加载即将出现的消息头像
+        AvatarLoader.attachPreloader(activityChatBinding.rvChatMessages, personaChatAdapter);
+
+        // 滚动到顶部时加载更早的一页聊天记录
+        activityChatBinding.rvChatMessages.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy < 0 && !recyclerView.canScrollVertically(-1)) {
+                    otherPersonaChatViewModel.loadOlderMessages();
+                }
+            }
+        });
     }
 
     /**
@@ -130,6 +161,16 @@ public class OtherPersonaChatActivity extends AppCompatActivity {
         }
         return super.onOptionsItemSelected(item);
     }
+
+    /**
+     * 界面不可见时调用
+     * 立即提交写入队列中的聊天记录，避免进程在后台被回收时丢失最近的消息
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        otherPersonaChatViewModel.flushPendingWrites();
+    }
     
 
 }
\ No newline at end of file
@@ -10,13 +10,14 @@ import android.view.ViewGroup;
 import android.widget.PopupWindow;
 import android.widget.Toast;
 
-import com.bumptech.glide.Glide;
+import com.example.demo.R;
 import com.example.demo.adapter.PersonaDropdownAdapter;
 import com.example.demo.databinding.ActivityPostEditorBinding;
 import com.example.demo.databinding.PersonaDropdownMenuBinding;
 import com.example.demo.model.UserPersona;
 import com.example.demo.viewmodel.UserPostCreateViewModel;
 import com.example.demo.viewmodel.UserPersonaViewModel;
+import com.example.demo.utils.AvatarLoader;
 
 import java.util.Objects;
 
@@ -110,6 +111,8 @@ public class UserPostCreateActivity extends AppCompatActivity {
             selectedPersona = persona;
             updateSelectedPersonaUI();
             personaPopupWindow.dismiss();
+            // 切换Persona后预先生成草稿
+            userPostCreateViewModel.prefetchDraft(persona);
         });
 
         // AI扩展按钮点击事件
@@ -155,6 +158,8 @@ public class UserPostCreateActivity extends AppCompatActivity {
             if (selectedPersona == null && personas != null && !personas.isEmpty()) {
                 selectedPersona = personas.get(0);
                 updateSelectedPersonaUI();
+                // 预先为默认Persona生成草稿
+                userPostCreateViewModel.prefetchDraft(selectedPersona);
             }
         });
 
@@ -199,18 +204,9 @@ public class UserPostCreateActivity extends AppCompatActivity {
         if (selectedPersona != null) {
             // 设置选中Persona的名称
             activityPostEditorBinding.tvSelectedPersonaName.setText(selectedPersona.getName());
-            // 使用Glide加载选中Persona的头像
-            if (selectedPersona.getAvatarUri() != null) {
-                Glide.with(this)
-                        .load(selectedPersona.getAvatarUri())
-                        .circleCrop()
-                        .into(activityPostEditorBinding.ivSelectedPersonaAvatar);
-            } else {
-                Glide.with(this)
-                        .load(selectedPersona.getAvatarDrawableId())
-                        .circleCrop()
-                        .into(activityPostEditorBinding.ivSelectedPersonaAvatar);
-            }
+            // 加载选中Persona的头像，与下拉列表共用缩略图缓存
+            AvatarLoader.load(activityPostEditorBinding.ivSelectedPersonaAvatar, AvatarLoader.modelOf(
+                    selectedPersona.getAvatarUri(), selectedPersona.getAvatarDrawableId(), R.drawable.ic_launcher_background));
         }
     }
 
@@ -5,24 +5,24 @@ import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.demo.model.ChatMessage;
+import com.example.demo.utils.AvatarLoader;
+import com.example.demo.utils.MarkdownRenderCache;
 import com.example.demo.utils.MarkdownTypewriterEffect;
 import com.example.demo.databinding.ItemChatReceivedBinding;
 import com.example.demo.databinding.ItemChatSentBinding;
 
-// Markwon库用于在Android中渲染Markdown文本
-import io.noties.markwon.Markwon;
-import io.noties.markwon.ext.strikethrough.StrikethroughPlugin;
-import io.noties.markwon.ext.tables.TablePlugin;
-import io.noties.markwon.ext.tasklist.TaskListPlugin;
-import io.noties.markwon.linkify.LinkifyPlugin;
-
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 // 导入资源类
 import com.example.demo.R;
@@ -33,13 +33,20 @@ import com.example.demo.R;
  * 支持发送和接收两种不同类型的消息布局
  * 接收的消息支持打字机效果显示
  */
-public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.ViewHolder> {
+public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.ViewHolder>
+        implements AvatarLoader.AvatarModelProvider {
 
     // 视图类型常量：发送的消息
     private static final int VIEW_TYPE_SENT = 1;
     // 视图类型常量：接收的消息
     private static final int VIEW_TYPE_RECEIVED = 2;
 
+    // 局部更新标记，使流式增量复用同一个ViewHolder，而不是执行交叉淡入的change动画
+    private static final Object PAYLOAD_TEXT_UPDATE = new Object();
+
+    // 提交列表前在后台预先渲染的消息数量，从最新的消息往前计算，覆盖首屏即可
+    private static final int PRERENDER_BEFORE_SUBMIT = 12;
+
     // 不需要静态映射，改为使用ChatMessage的isTypewriterComplete字段
     
     // 打字机效果完成回调接口
@@ -50,8 +57,21 @@ public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.Vi
     // 打字机效果完成监听器
     private volatile OnTypewriterCompleteListener onTypewriterCompleteListener;
     
-    // Markwon实例，用于渲染Markdown文本
-    private final Markwon markwon;
+    // Markdown渲染缓存，用于渲染Markdown文本，重新绑定时复用已解析的结果
+    private final MarkdownRenderCache markdownRenderCache;
+
+    // 发送消息TextView的文本测量参数，用于在后台预先排版，第一次绑定发送消息前为null
+    private PrecomputedTextCompat.Params sentTextParams;
+
+    // 接收消息TextView的文本测量参数，用于在后台预先排版，第一次绑定接收消息前为null
+    private PrecomputedTextCompat.Params receivedTextParams;
+
+    // 最近一次提交列表的序号，后台渲染完成时丢弃已过期的列表
+    private int submitGeneration = 0;
+
+    // 已交给后台渲染但尚未完成的消息，按消息ID记录排队时的文本，只在主线程访问
+    // 流式增量每次都会提交列表，已排队的消息不再重复排队
+    private final Map<UUID, String> queuedPrerenders = new HashMap<>();
 
     /**
      * 消息差异回调
@@ -66,8 +86,16 @@ public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.Vi
 
         @Override
         public boolean areContentsTheSame(@NonNull ChatMessage oldItem, @NonNull ChatMessage newItem) {
-            // 比较消息内容
-            return oldItem.equals(newItem);
+            // 比较消息内容，流式回复的每个增量都会生成文本不同的新对象
+            return oldItem.getText().equals(newItem.getText())
+                    && oldItem.isStreaming() == newItem.isStreaming()
+                    && oldItem.isTypewriterComplete() == newItem.isTypewriterComplete();
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull ChatMessage oldItem, @NonNull ChatMessage newItem) {
+            // 返回非空payload，RecyclerView会在原ViewHolder上重新绑定，正在进行的打字机效果得以延续
+            return PAYLOAD_TEXT_UPDATE;
         }
     }
 
@@ -77,13 +105,91 @@ public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.Vi
      */
     public PersonaChatAdapter(Context context) {
         super(new ChatMessageDiffCallback());
-        // 初始化Markwon，配置各种插件支持Markdown特性
-        this.markwon = Markwon.builder(context)
-                .usePlugin(StrikethroughPlugin.create()) // 支持删除线
-                .usePlugin(TablePlugin.create(context)) // 支持表格
-                .usePlugin(TaskListPlugin.create(context)) // 支持任务列表
-                .usePlugin(LinkifyPlugin.create()) // 支持自动链接识别
-                .build();
+        // 使用应用内共用的Markwon实例和解析缓存
+        this.markdownRenderCache = MarkdownRenderCache.getInstance(context);
+    }
+
+    /**
+     * 预先渲染消息后再提交列表
+     * 最新的若干条消息在后台解析和排版完成后才提交，更早的消息提交后继续在后台渲染
+     * 流式回复和仍需打字机效果的消息不预先渲染，它们由打字机逐字显示
+     * 所有消息都已渲染过时直接提交，流式增量不会因此变慢；已在后台排队的消息按ID去重，不会随每个增量重复排队
+     * 还没有绑定过对应类型的消息、文本测量参数未知时只在后台解析，不排版
+     * @param messages 消息列表
+     * @param commitCallback 列表提交完成后在主线程执行，可以为null
+     */
+    public void submitPrerendered(List<ChatMessage> messages, Runnable commitCallback) {
+        int generation = ++submitGeneration;
+        List<ChatMessage> sentFirst = new ArrayList<>();
+        List<ChatMessage> receivedFirst = new ArrayList<>();
+        List<ChatMessage> sentRemaining = new ArrayList<>();
+        List<ChatMessage> receivedRemaining = new ArrayList<>();
+        int firstScreenCount = 0;
+        boolean waitForFirstScreen = false;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            ChatMessage message = messages.get(i);
+            if (message.isStreaming() || (!message.isSentByUser() && !message.isTypewriterComplete())) {
+                continue;
+            }
+            PrecomputedTextCompat.Params params = message.isSentByUser() ? sentTextParams : receivedTextParams;
+            if (markdownRenderCache.isPrerendered(message.getText(), params)) {
+                continue;
+            }
+            boolean firstScreen = firstScreenCount++ < PRERENDER_BEFORE_SUBMIT;
+            waitForFirstScreen |= firstScreen;
+            if (message.getText().equals(queuedPrerenders.get(message.getId()))) {
+                // 之前的提交已经排队，渲染线程按顺序执行，等待后面的任务即可
+                continue;
+            }
+            queuedPrerenders.put(message.getId(), message.getText());
+            if (message.isSentByUser()) {
+                (firstScreen ? sentFirst : sentRemaining).add(message);
+            } else {
+                (firstScreen ? receivedFirst : receivedRemaining).add(message);
+            }
+        }
+        if (!waitForFirstScreen) {
+            submitList(messages, commitCallback);
+            return;
+        }
+        // 渲染线程按提交顺序执行，最后一批完成时之前排队的首屏消息也已完成，即使这一批为空
+        queuePrerender(sentFirst, sentTextParams, null);
+        queuePrerender(receivedFirst, receivedTextParams, () -> {
+            // 渲染期间又提交了新列表时，丢弃这次的旧列表
+            if (generation == submitGeneration) {
+                submitList(messages, commitCallback);
+            }
+        });
+        if (!sentRemaining.isEmpty()) {
+            queuePrerender(sentRemaining, sentTextParams, null);
+        }
+        if (!receivedRemaining.isEmpty()) {
+            queuePrerender(receivedRemaining, receivedTextParams, null);
+        }
+    }
+
+    /**
+     * 把一批消息交给后台渲染，完成后从排队记录中移除
+     * @param batch 消息列表
+     * @param params 目标TextView的文本测量参数，未知时为null
+     * @param onComplete 完成后在主线程执行，可以为null
+     */
+    private void queuePrerender(List<ChatMessage> batch, PrecomputedTextCompat.Params params, Runnable onComplete) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (ChatMessage message : batch) {
+            texts.add(message.getText());
+        }
+        markdownRenderCache.prerender(texts, params, () -> {
+            for (ChatMessage message : batch) {
+                // 期间同一条消息以新文本重新排队时保留新的记录
+                if (message.getText().equals(queuedPrerenders.get(message.getId()))) {
+                    queuedPrerenders.remove(message.getId());
+                }
+            }
+            if (onComplete != null) {
+                onComplete.run();
+            }
+        });
     }
     
     /**
@@ -126,13 +232,13 @@ public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.Vi
             case VIEW_TYPE_SENT:
                 // 创建发送消息的ViewHolder
                 ItemChatSentBinding sentBinding = ItemChatSentBinding.inflate(inflater, parent, false);
-                return new SentMessageViewHolder(sentBinding, markwon);
+                return new SentMessageViewHolder(sentBinding, markdownRenderCache);
 
             case VIEW_TYPE_RECEIVED:
             default:
                 // 创建接收消息的ViewHolder
                 ItemChatReceivedBinding receivedBinding = ItemChatReceivedBinding.inflate(inflater, parent, false);
-                return new ReceivedMessageViewHolder(receivedBinding, markwon, this);
+                return new ReceivedMessageViewHolder(receivedBinding, markdownRenderCache, this);
         }
     }
 
@@ -147,9 +253,57 @@ public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.Vi
         ChatMessage message = getItem(position);
 
         if (holder.getItemViewType() == VIEW_TYPE_SENT) {
-            ((SentMessageViewHolder) holder).bind(message);
+            SentMessageViewHolder sentHolder = (SentMessageViewHolder) holder;
+            if (sentTextParams == null) {
+                // 从第一个绑定的消息TextView读取字体和排版设置，保证预先排版的结果可以直接设置到消息TextView
+                sentTextParams = TextViewCompat.getTextMetricsParams(sentHolder.binding.tvMessage);
+            }
+            sentHolder.bind(message);
         } else if (holder.getItemViewType() == VIEW_TYPE_RECEIVED) {
-            ((ReceivedMessageViewHolder) holder).bind(message);
+            ReceivedMessageViewHolder receivedHolder = (ReceivedMessageViewHolder) holder;
+            if (receivedTextParams == null) {
+                receivedTextParams = TextViewCompat.getTextMetricsParams(receivedHolder.binding.tvMessage);
+            }
+            receivedHolder.bind(message);
+        }
+    }
+
+    /**
+     * 获取指定位置消息的头像，用于预加载
+     * @param position 列表项位置
+     * @return 头像（Uri或资源ID）
+     */
+    @Override
+    public Object getAvatarModel(int position) {
+        if (position < 0 || position >= getItemCount()) {
+            return null;
+        }
+        return avatarModelOf(getItem(position));
+    }
+
+    /**
+     * 确定消息的头像，优先使用资源ID，其次使用URI，都没有时按消息类型使用默认头像
+     * @param message 消息
+     * @return 头像（Uri或资源ID）
+     */
+    private static Object avatarModelOf(ChatMessage message) {
+        if (message.getAvatarDrawableId() != 0) {
+            return message.getAvatarDrawableId();
+        }
+        int fallback = message.isSentByUser() ? R.drawable.icon_persona : R.drawable.avatar_zero;
+        return AvatarLoader.modelOf(message.getAvatarUri(), 0, fallback);
+    }
+
+    /**
+     * ViewHolder被回收时停止其打字机效果
+     * 显示进度已按消息ID记录，消息再次出现时从原位置继续，不会重新开始
+     * @param holder 被回收的ViewHolder
+     */
+    @Override
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewRecycled(holder);
+        if (holder instanceof ReceivedMessageViewHolder) {
+            ((ReceivedMessageViewHolder) holder).detachTypewriter();
         }
     }
 
@@ -160,18 +314,18 @@ public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.Vi
     private static class SentMessageViewHolder extends RecyclerView.ViewHolder {
         // 视图绑定对象
         private final ItemChatSentBinding binding;
-        // Markwon实例
-        private final Markwon markwon;
+        // Markdown渲染缓存
+        private final MarkdownRenderCache markdownRenderCache;
 
         /**
          * 构造函数
          * @param binding 视图绑定对象
-         * @param markwon Markwon实例
+         * @param markdownRenderCache Markdown渲染缓存
          */
-        public SentMessageViewHolder(ItemChatSentBinding binding, Markwon markwon) {
+        public SentMessageViewHolder(ItemChatSentBinding binding, MarkdownRenderCache markdownRenderCache) {
             super(binding.getRoot());
             this.binding = binding;
-            this.markwon = markwon;
+            this.markdownRenderCache = markdownRenderCache;
         }
 
         /**
@@ -179,20 +333,11 @@ public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.Vi
          * @param message 要显示的消息
          */
         public void bind(ChatMessage message) {
-            // 使用Markwon渲染Markdown内容
-            markwon.setMarkdown(binding.tvMessage, message.getText());
+            // 渲染Markdown内容，已解析过的消息直接复用结果
+            markdownRenderCache.setMarkdown(binding.tvMessage, message.getText());
             
-            // 设置头像
-            if (message.getAvatarDrawableId() != 0) {
-                // 从资源ID加载头像
-                binding.ivAvatar.setImageResource(message.getAvatarDrawableId());
-            } else if (message.getAvatarUri() != null) {
-                // 从URI加载头像
-                binding.ivAvatar.setImageURI(android.net.Uri.parse(message.getAvatarUri()));
-            } else {
-                // 设置默认头像
-                binding.ivAvatar.setImageResource(R.drawable.icon_persona);
-            }
+            // 设置头像，与列表共用缩略图缓存，不在主线程解码原图
+            AvatarLoader.load(binding.ivAvatar, avatarModelOf(message));
         }
     }
 
@@ -205,21 +350,23 @@ public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.Vi
         private final ItemChatReceivedBinding binding;
         // 打字机效果实例
         private MarkdownTypewriterEffect typewriterEffect;
-        // Markwon实例
-        private final Markwon markwon;
+        // 打字机效果正在显示的消息ID
+        private UUID typingMessageId;
+        // Markdown渲染缓存
+        private final MarkdownRenderCache markdownRenderCache;
         // 适配器实例，用于访问监听器
         private final PersonaChatAdapter adapter;
 
         /**
          * 构造函数
          * @param binding 视图绑定对象
-         * @param markwon Markwon实例
+         * @param markdownRenderCache Markdown渲染缓存
          * @param adapter PersonaChatAdapter实例
          */
-        public ReceivedMessageViewHolder(ItemChatReceivedBinding binding, Markwon markwon, PersonaChatAdapter adapter) {
+        public ReceivedMessageViewHolder(ItemChatReceivedBinding binding, MarkdownRenderCache markdownRenderCache, PersonaChatAdapter adapter) {
             super(binding.getRoot());
             this.binding = binding;
-            this.markwon = markwon;
+            this.markdownRenderCache = markdownRenderCache;
             this.adapter = adapter;
         }
 
@@ -228,34 +375,34 @@ public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.Vi
          * @param message 要显示的消息
          */
         public void bind(ChatMessage message) {
-            // 设置头像
-            if (message.getAvatarDrawableId() != 0) {
-                // 从资源ID加载头像
-                binding.ivAvatar.setImageResource(message.getAvatarDrawableId());
-            } else if (message.getAvatarUri() != null) {
-                // 从URI加载头像
-                binding.ivAvatar.setImageURI(android.net.Uri.parse(message.getAvatarUri()));
-            } else {
-                // 设置默认头像
-                binding.ivAvatar.setImageResource(R.drawable.avatar_zero);
-            }
+            // 设置头像，与列表共用缩略图缓存，不在主线程解码原图
+            AvatarLoader.load(binding.ivAvatar, avatarModelOf(message));
             
+            // 同一条消息的流式增量到达时，把新文本交给正在进行的打字机效果，而不是重新开始
+            if (typewriterEffect != null && typewriterEffect.isRunning() && message.getId().equals(typingMessageId)) {
+                typewriterEffect.updateText(message.getText(), !message.isStreaming());
+                return;
+            }
+
+            // 改为显示其他消息时，停止之前的打字机效果，进度保留给之前的消息
+            detachTypewriter();
+
             // 检查消息是否已经完成打字机效果
             if (message.isTypewriterComplete()) {
                 // 如果已完成，直接显示完整消息
-                markwon.setMarkdown(binding.tvMessage, message.getText());
+                markdownRenderCache.setMarkdown(binding.tvMessage, message.getText());
                 return;
             }
             
-            // 如果有正在进行的打字机效果，先取消它
-            if (typewriterEffect != null) {
-                typewriterEffect.cancel();
-            }
-            
             // 创建新的打字机效果，这是匿名类，内部重写onComplete方法，打字机完成时调用onComplete方法
-            typewriterEffect = new MarkdownTypewriterEffect(binding.tvMessage, message.getText(), 50, markwon) {
+            typingMessageId = message.getId();
+            typewriterEffect = new MarkdownTypewriterEffect(binding.tvMessage, message.getText(), 50, markdownRenderCache) {
                 @Override
                 protected void onComplete() {
+                    // 已经通知过的消息不再重复通知，避免快速滚动时反复写库
+                    if (message.isTypewriterComplete()) {
+                        return;
+                    }
                     // 打字机效果完成后，更新消息对象的状态
                     message.setTypewriterComplete(true);
                     
@@ -266,7 +413,22 @@ public class PersonaChatAdapter extends ListAdapter<ChatMessage, RecyclerView.Vi
                     }
                 }
             };
+            // 流式回复尚未结束时，打字机追上已收到的文本后等待后续增量
+            typewriterEffect.setTextComplete(!message.isStreaming());
+            // 按消息ID记录进度，重新绑定时从原位置继续
+            typewriterEffect.setProgressKey(message.getId().toString());
             typewriterEffect.start(); // 开始打字机效果
         }
+
+        /**
+         * 停止当前的打字机效果，不显示完整文本也不标记完成
+         */
+        void detachTypewriter() {
+            if (typewriterEffect != null) {
+                typewriterEffect.detach();
+                typewriterEffect = null;
+                typingMessageId = null;
+            }
+        }
     }
 }
\ No newline at end of file
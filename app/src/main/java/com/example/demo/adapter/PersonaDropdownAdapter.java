@@ -1,7 +1,6 @@
 package com.example.demo.adapter;
 
 import android.content.Context;
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,10 +10,10 @@ import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.demo.model.UserPersona;
 import com.example.demo.R;
 import com.example.demo.databinding.ItemFollowedPersonaBinding;
+import com.example.demo.utils.AvatarLoader;
 
 import java.util.Objects;
 
@@ -132,20 +131,9 @@ public class PersonaDropdownAdapter extends ListAdapter<UserPersona, PersonaDrop
             binding.tvPersonaName.setText(userPersona.getName());
             binding.tvPersonaBio.setText(userPersona.getSignature());
 
-            // 使用Glide加载头像，优先使用avatarUri，如果没有则使用avatarDrawableId
-            if (userPersona.getAvatarUri() != null) {
-                Glide.with(context)
-                        .load(Uri.parse(userPersona.getAvatarUri()))
-                        .placeholder(R.drawable.ic_launcher_background) // 占位图
-                        .circleCrop() // 圆形裁剪
-                        .into(binding.ivPersonaAvatar);
-            } else {
-                Glide.with(context)
-                        .load(userPersona.getAvatarDrawableId())
-                        .placeholder(R.drawable.ic_launcher_background) // 占位图
-                        .circleCrop() // 圆形裁剪
-                        .into(binding.ivPersonaAvatar);
-            }
+            // 加载头像，优先使用avatarUri，如果没有则使用avatarDrawableId，按缩略图尺寸解码并缓存
+            AvatarLoader.load(binding.ivPersonaAvatar, AvatarLoader.modelOf(
+                    userPersona.getAvatarUri(), userPersona.getAvatarDrawableId(), R.drawable.ic_launcher_background));
 
             // 设置整个项的点击事件，点击后选择该UserPersona
             // 每个 ViewHolder 都有自己的点击监听器
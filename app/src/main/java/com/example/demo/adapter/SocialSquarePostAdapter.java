@@ -2,12 +2,13 @@ package com.example.demo.adapter;
 
 import android.content.Context;
 import android.content.Intent;
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
@@ -21,14 +22,11 @@ import com.example.demo.model.Persona;
 import com.example.demo.model.Post;
 import com.example.demo.model.PostUiItem;
 import com.example.demo.databinding.ItemPersonaPostBinding;
+import com.example.demo.utils.MarkdownRenderCache;
+import com.example.demo.utils.AvatarLoader;
 
-// Markwon库用于在Android中渲染Markdown文本
-import io.noties.markwon.Markwon;
-import io.noties.markwon.ext.strikethrough.StrikethroughPlugin;
-import io.noties.markwon.ext.tables.TablePlugin;
-import io.noties.markwon.ext.tasklist.TaskListPlugin;
-import io.noties.markwon.linkify.LinkifyPlugin;
-
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -36,12 +34,25 @@ import java.util.Objects;
  * 用于在RecyclerView中显示Persona发布的帖子
  * 实现了点击头像/名称跳转聊天界面、关注/取消关注功能
  */
-public class SocialSquarePostAdapter extends ListAdapter<PostUiItem, SocialSquarePostAdapter.PostViewHolder> {
+public class SocialSquarePostAdapter extends ListAdapter<PostUiItem, SocialSquarePostAdapter.PostViewHolder>
+        implements AvatarLoader.AvatarModelProvider {
     // 上下文，用于启动Activity和加载资源
     private final Context context;
     // 用户关注其他persona操作的回调接口
     private OnFollowClickListener onFollowClickListener;
 
+    // 提交列表前在后台预先渲染的帖子数量，覆盖首屏即可，其余帖子在提交后继续渲染
+    private static final int PRERENDER_BEFORE_SUBMIT = 12;
+
+    // Markdown渲染缓存，应用内共用，滑动时重新绑定的帖子不再重复解析
+    private final MarkdownRenderCache markdownRenderCache;
+
+    // 帖子正文TextView的文本测量参数，用于在后台预先排版，第一次绑定帖子前为null
+    private PrecomputedTextCompat.Params contentTextParams;
+
+    // 最近一次提交列表的序号，后台渲染完成时丢弃已过期的列表
+    private int submitGeneration = 0;
+
     /**
      * 构造函数
      * @param context 上下文
@@ -49,6 +60,44 @@ public class SocialSquarePostAdapter extends ListAdapter<PostUiItem, SocialSquar
     public SocialSquarePostAdapter(Context context) {
         super(new PostUiItemDiffCallback());
         this.context = context;
+        this.markdownRenderCache = MarkdownRenderCache.getInstance(context);
+    }
+
+    /**
+     * 预先渲染帖子正文后再提交列表
+     * 首屏的帖子在后台解析和排版完成后才提交，绑定时只需setText；其余帖子提交后继续在后台渲染
+     * 所有帖子都已渲染过时直接提交
+     * 还没有绑定过帖子、正文的文本测量参数未知时只在后台解析，不排版
+     * @param items 帖子UI列表
+     */
+    public void submitPrerendered(List<PostUiItem> items) {
+        int generation = ++submitGeneration;
+        List<String> firstScreen = new ArrayList<>();
+        List<String> remaining = new ArrayList<>();
+        for (PostUiItem item : items) {
+            String text = item.getPost().getContentText();
+            if (markdownRenderCache.isPrerendered(text, contentTextParams)) {
+                continue;
+            }
+            if (firstScreen.size() < PRERENDER_BEFORE_SUBMIT) {
+                firstScreen.add(text);
+            } else {
+                remaining.add(text);
+            }
+        }
+        if (firstScreen.isEmpty()) {
+            submitList(items);
+            return;
+        }
+        markdownRenderCache.prerender(firstScreen, contentTextParams, () -> {
+            // 渲染期间又提交了新列表时，丢弃这次的旧列表
+            if (generation == submitGeneration) {
+                submitList(items);
+            }
+        });
+        if (!remaining.isEmpty()) {
+            markdownRenderCache.prerender(remaining, contentTextParams, null);
+        }
     }
 
     /**
@@ -119,10 +168,28 @@ public class SocialSquarePostAdapter extends ListAdapter<PostUiItem, SocialSquar
     public void onBindViewHolder(@NonNull PostViewHolder holder, int position) {
         // 使用getItem获取当前位置的PostUiItem
         PostUiItem postUiItem = getItem(position);
+        if (contentTextParams == null) {
+            // 从第一个绑定的帖子读取正文的字体和排版设置，保证预先排版的结果可以直接设置到正文TextView
+            contentTextParams = TextViewCompat.getTextMetricsParams(holder.itemPersonaPostBinding.tvContentText);
+        }
         // 将该PostUiItem绑定到视图
         holder.bind(postUiItem);
     }
 
+    /**
+     * 获取指定位置帖子作者的头像，用于预加载
+     * @param position 列表项位置
+     * @return 头像（Uri或资源ID）
+     */
+    @Override
+    public Object getAvatarModel(int position) {
+        if (position < 0 || position >= getItemCount()) {
+            return null;
+        }
+        Persona author = getItem(position).getPost().getAuthor();
+        return AvatarLoader.modelOf(author.getAvatarUri(), author.getAvatarDrawableId(), R.drawable.ic_launcher_background);
+    }
+
     /**
      * 帖子ViewHolder类
      * 持有单个帖子项的所有视图，并负责数据绑定和事件处理
@@ -132,9 +199,6 @@ public class SocialSquarePostAdapter extends ListAdapter<PostUiItem, SocialSquar
         // 视图绑定对象，用于访问布局中的各个组件
         private final ItemPersonaPostBinding itemPersonaPostBinding;
         
-        // Markwon实例，用于渲染Markdown文本
-        private final Markwon markwon;
-        
         /**
          * ViewHolder构造函数
          * @param itemPersonaPostBinding 视图绑定对象
@@ -142,14 +206,6 @@ public class SocialSquarePostAdapter extends ListAdapter<PostUiItem, SocialSquar
         public PostViewHolder(ItemPersonaPostBinding itemPersonaPostBinding) {
             super(itemPersonaPostBinding.getRoot());
             this.itemPersonaPostBinding = itemPersonaPostBinding;
-            
-            // 初始化Markwon，配置各种插件支持Markdown特性
-            markwon = Markwon.builder(itemPersonaPostBinding.getRoot().getContext())
-                    .usePlugin(StrikethroughPlugin.create()) // 支持删除线
-                    .usePlugin(TablePlugin.create(itemPersonaPostBinding.getRoot().getContext())) // 支持表格
-                    .usePlugin(TaskListPlugin.create(itemPersonaPostBinding.getRoot().getContext())) // 支持任务列表
-                    .usePlugin(LinkifyPlugin.create()) // 支持自动链接识别
-                    .build();
         }
 
         /**
@@ -163,23 +219,12 @@ public class SocialSquarePostAdapter extends ListAdapter<PostUiItem, SocialSquar
             itemPersonaPostBinding.tvAuthorName.setText(author.getName());
             itemPersonaPostBinding.tvAuthorBioOrTime.setText(author.getSignature());
             
-            // 使用Glide加载头像，优先使用avatarUri，如果没有则使用avatarDrawableId
-            if (author.getAvatarUri() != null) {
-                Glide.with(context)
-                        .load(Uri.parse(author.getAvatarUri()))
-                        .placeholder(R.drawable.ic_launcher_background) // 占位图
-                        .circleCrop() // 圆形裁剪
-                        .into(itemPersonaPostBinding.ivAvatar);
-            } else {
-                Glide.with(context)
-                        .load(author.getAvatarDrawableId())
-                        .placeholder(R.drawable.ic_launcher_background) // 占位图
-                        .circleCrop() // 圆形裁剪
-                        .into(itemPersonaPostBinding.ivAvatar);
-            }
+            // 加载头像，优先使用avatarUri，如果没有则使用avatarDrawableId，按缩略图尺寸解码并缓存
+            AvatarLoader.load(itemPersonaPostBinding.ivAvatar, AvatarLoader.modelOf(
+                    author.getAvatarUri(), author.getAvatarDrawableId(), R.drawable.ic_launcher_background));
 
-            // 使用Markwon将帖子的内容渲染成Markdown
-            markwon.setMarkdown(itemPersonaPostBinding.tvContentText, post.getContentText());
+            // 将帖子的内容渲染成Markdown，已解析过的帖子直接复用结果
+            markdownRenderCache.setMarkdown(itemPersonaPostBinding.tvContentText, post.getContentText());
             
             // 如果帖子有图片，则显示并加载图片
             if (post.getImageDrawableId() != null) {
@@ -2,7 +2,6 @@ package com.example.demo.adapter;
 
 import android.content.Context;
 import android.content.Intent;
-import android.net.Uri;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -16,11 +15,11 @@ import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.demo.model.OtherPersona;
 import com.example.demo.R;
 import com.example.demo.databinding.ItemFollowedPersonaBinding;
 import com.example.demo.activity.OtherPersonaChatActivity;
+import com.example.demo.utils.AvatarLoader;
 
 import java.util.Objects;
 
@@ -29,7 +28,8 @@ import java.util.Objects;
  * 用于在RecyclerView中显示用户已关注的Persona列表
  * 实现了点击Persona项或头像跳转到聊天界面的功能
  */
-public class UserFollowedListAdapter extends ListAdapter<OtherPersona, UserFollowedListAdapter.FollowedPersonaViewHolder> {
+public class UserFollowedListAdapter extends ListAdapter<OtherPersona, UserFollowedListAdapter.FollowedPersonaViewHolder>
+        implements AvatarLoader.AvatarModelProvider {
 
     // 上下文，用于启动Activity和加载资源
     private final Context context;
@@ -106,6 +106,20 @@ public class UserFollowedListAdapter extends ListAdapter<OtherPersona, UserFollo
         holder.bind(persona);
     }
 
+    /**
+     * 获取指定位置Persona的头像，用于预加载
+     * @param position 列表项位置
+     * @return 头像（Uri或资源ID）
+     */
+    @Override
+    public Object getAvatarModel(int position) {
+        if (position < 0 || position >= getItemCount()) {
+            return null;
+        }
+        OtherPersona persona = getItem(position);
+        return AvatarLoader.modelOf(persona.getAvatarUri(), persona.getAvatarDrawableId(), R.drawable.ic_launcher_background);
+    }
+
     /**
      * 已关注Persona的ViewHolder类
      * 持有单个Persona项的所有视图，并负责数据绑定和事件处理
@@ -133,20 +147,9 @@ public class UserFollowedListAdapter extends ListAdapter<OtherPersona, UserFollo
             binding.tvPersonaName.setText(persona.getName());
             binding.tvPersonaBio.setText(persona.getSignature());
 
-            // 使用Glide加载头像，优先使用avatarUri，如果没有则使用avatarDrawableId
-            if (persona.getAvatarUri() != null) {
-                Glide.with(context)
-                        .load(Uri.parse(persona.getAvatarUri()))
-                        .placeholder(R.drawable.ic_launcher_background) // 占位图
-                        .circleCrop() // 圆形裁剪
-                        .into(binding.ivPersonaAvatar);
-            } else {
-                Glide.with(context)
-                        .load(persona.getAvatarDrawableId())
-                        .placeholder(R.drawable.ic_launcher_background) // 占位图
-                        .circleCrop() // 圆形裁剪
-                        .into(binding.ivPersonaAvatar);
-            }
+            // 加载头像，优先使用avatarUri，如果没有则使用avatarDrawableId，按缩略图尺寸解码并缓存
+            AvatarLoader.load(binding.ivPersonaAvatar, AvatarLoader.modelOf(
+                    persona.getAvatarUri(), persona.getAvatarDrawableId(), R.drawable.ic_launcher_background));
 
             // 设置整个项的点击事件，点击后跳转到聊天界面
             binding.getRoot().setOnClickListener(new View.OnClickListener() {
@@ -2,7 +2,6 @@ package com.example.demo.adapter;
 
 import android.content.Context;
 import android.content.Intent;
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -16,11 +15,11 @@ import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.demo.model.UserPersona;
 import com.example.demo.R;
 import com.example.demo.databinding.ItemFollowedPersonaBinding;
 import com.example.demo.activity.UserPersonaChatActivity;
+import com.example.demo.utils.AvatarLoader;
 
 import java.util.Objects;
 
@@ -133,20 +132,9 @@ public class UserPersonaListAdapter extends ListAdapter<UserPersona, UserPersona
             binding.tvPersonaName.setText(userPersona.getName());
             binding.tvPersonaBio.setText(userPersona.getSignature());
 
-            // 使用Glide加载头像，优先使用avatarUri，如果没有则使用avatarDrawableId
-            if (userPersona.getAvatarUri() != null) {
-                Glide.with(context)
-                        .load(Uri.parse(userPersona.getAvatarUri()))
-                        .placeholder(R.drawable.ic_launcher_background) // 占位图
-                        .circleCrop() // 圆形裁剪
-                        .into(binding.ivPersonaAvatar);
-            } else {
-                Glide.with(context)
-                        .load(userPersona.getAvatarDrawableId())
-                        .placeholder(R.drawable.ic_launcher_background) // 占位图
-                        .circleCrop() // 圆形裁剪
-                        .into(binding.ivPersonaAvatar);
-            }
+            // 加载头像，优先使用avatarUri，如果没有则使用avatarDrawableId，按缩略图尺寸解码并缓存
+            AvatarLoader.load(binding.ivPersonaAvatar, AvatarLoader.modelOf(
+                    userPersona.getAvatarUri(), userPersona.getAvatarDrawableId(), R.drawable.ic_launcher_background));
 
             // 设置整个项的点击事件，点击后跳转到聊天界面
             binding.getRoot().setOnClickListener(new View.OnClickListener() {
@@ -6,9 +6,11 @@ import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.example.demo.data.model.ChatHistory;
+import com.example.demo.data.model.ConversationSummary;
 import com.example.demo.model.OtherPersona;
 import com.example.demo.model.UserPersona;
 
@@ -16,7 +18,7 @@ import com.example.demo.model.UserPersona;
  * 应用数据库类
  * 继承自RoomDatabase，使用单例模式创建数据库实例
  */
-@Database(entities = {UserPersona.class, OtherPersona.class, ChatHistory.class}, version = 7, exportSchema = false)
+@Database(entities = {UserPersona.class, OtherPersona.class, ChatHistory.class, ConversationSummary.class}, version = 9, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
 
     // 数据库名称
@@ -25,6 +27,36 @@ public abstract class AppDatabase extends RoomDatabase {
     // 单例实例
     private static volatile AppDatabase instance;
 
+    /**
+     * 数据库迁移：版本7到8
+     * 为chat_history添加按Persona和时间查询的复合索引，以及message_id唯一索引
+     * 创建唯一索引前先删除message_id重复的旧记录，只保留最新插入的一条
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DELETE FROM `chat_history` WHERE `id` NOT IN " +
+                    "(SELECT MAX(`id`) FROM `chat_history` GROUP BY `message_id`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_chat_history_persona_type_persona_id_timestamp` " +
+                    "ON `chat_history` (`persona_type`, `persona_id`, `timestamp`)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_chat_history_message_id` " +
+                    "ON `chat_history` (`message_id`)");
+        }
+    };
+
+    /**
+     * 数据库迁移：版本8到9
+     * 新增conversation_summary表，保存每个Persona的对话摘要
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `conversation_summary` (" +
+                    "`persona_type` TEXT NOT NULL, `persona_id` INTEGER NOT NULL, `summary` TEXT NOT NULL, " +
+                    "`last_message_id` TEXT, PRIMARY KEY(`persona_type`, `persona_id`))");
+        }
+    };
+
     /**
      * 获取单例实例
      * @param context 上下文
@@ -37,7 +69,9 @@ public abstract class AppDatabase extends RoomDatabase {
                     AppDatabase.class,
                     DATABASE_NAME
             )
-                    .fallbackToDestructiveMigration() // 仅用于开发和测试阶段
+                    .addMigrations(MIGRATION_7_8, MIGRATION_8_9)
+                    // 版本7之前只存在于开发阶段，没有迁移路径，直接重建
+                    .fallbackToDestructiveMigrationFrom(1, 2, 3, 4, 5, 6)
                     .addCallback(new RoomDatabase.Callback() {
                         @Override
                         public void onCreate(@NonNull SupportSQLiteDatabase db) {
@@ -76,4 +110,10 @@ public abstract class AppDatabase extends RoomDatabase {
      * @return ChatHistoryDao实例
      */
     public abstract ChatHistoryDao chatHistoryDao();
+    
+    /**
+     * 获取ConversationSummaryDao实例
+     * @return ConversationSummaryDao实例
+     */
+    public abstract ConversationSummaryDao conversationSummaryDao();
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.example.demo.data.local;
 
+import android.database.Cursor;
+
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
@@ -49,6 +51,31 @@ public interface ChatHistoryDao {
     @Query("SELECT * FROM chat_history WHERE persona_type = :personaType AND persona_id = :personaId ORDER BY timestamp ASC")
     List<ChatHistory> getChatHistoryByPersonaSync(String personaType, long personaId);
     
+    /**
+     * 根据Persona类型和ID查询聊天记录游标，按时间从新到旧排序
+     * 调用方逐行读取，只需要最近的记录时可以提前停止，不必把整个历史加载到内存
+     * @param personaType Persona类型（"user"或"other"）
+     * @param personaId 关联的Persona ID
+     * @return 聊天历史记录游标，使用后需关闭
+     */
+    @Query("SELECT * FROM chat_history WHERE persona_type = :personaType AND persona_id = :personaId ORDER BY timestamp DESC, id DESC")
+    Cursor getChatHistoryCursorNewestFirst(String personaType, long personaId);
+    
+    /**
+     * 按键集分页查询更早的聊天记录，按时间从新到旧排序
+     * 以上一页最早一条记录的(timestamp, id)为游标，不使用OFFSET，翻页代价不随页数增长
+     * @param personaType Persona类型（"user"或"other"）
+     * @param personaId 关联的Persona ID
+     * @param beforeTimestamp 上一页最早一条记录的时间戳
+     * @param beforeId 上一页最早一条记录的主键ID
+     * @param limit 每页条数
+     * @return 早于游标的一页聊天记录
+     */
+    @Query("SELECT * FROM chat_history WHERE persona_type = :personaType AND persona_id = :personaId " +
+            "AND (timestamp < :beforeTimestamp OR (timestamp = :beforeTimestamp AND id < :beforeId)) " +
+            "ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    List<ChatHistory> getChatHistoryPageBefore(String personaType, long personaId, long beforeTimestamp, long beforeId, int limit);
+    
     /**
      * 删除指定Persona的聊天记录
      * @param personaType Persona类型（"user"或"other"）
@@ -70,4 +97,12 @@ public interface ChatHistoryDao {
      */
     @Query("UPDATE chat_history SET is_typewriter_complete = :isTypewriterComplete WHERE message_id = :messageId")
     void updateTypewriterStatus(String messageId, boolean isTypewriterComplete);
+
+    /**
+     * 批量更新多条消息的打字机完成状态
+     * @param messageIds 消息ID列表
+     * @param isTypewriterComplete 打字机效果是否已完成
+     */
+    @Query("UPDATE chat_history SET is_typewriter_complete = :isTypewriterComplete WHERE message_id IN (:messageIds)")
+    void updateTypewriterStatusBatch(List<String> messageIds, boolean isTypewriterComplete);
 }
@@ -0,0 +1,40 @@
+package com.example.demo.data.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.demo.data.model.ConversationSummary;
+
+/**
+ * 对话摘要数据访问对象
+ * 提供数据库操作方法，用于操作conversation_summary表
+ */
+@Dao
+public interface ConversationSummaryDao {
+
+    /**
+     * 插入或覆盖Persona的对话摘要
+     * @param conversationSummary 对话摘要对象
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(ConversationSummary conversationSummary);
+
+    /**
+     * 查询Persona的对话摘要（同步方法）
+     * @param personaType Persona类型（"user"或"other"）
+     * @param personaId 关联的Persona ID
+     * @return 对话摘要，没有时返回null
+     */
+    @Query("SELECT * FROM conversation_summary WHERE persona_type = :personaType AND persona_id = :personaId")
+    ConversationSummary getSummarySync(String personaType, long personaId);
+
+    /**
+     * 删除指定Persona的对话摘要
+     * @param personaType Persona类型（"user"或"other"）
+     * @param personaId 关联的Persona ID
+     */
+    @Query("DELETE FROM conversation_summary WHERE persona_type = :personaType AND persona_id = :personaId")
+    void deleteSummary(String personaType, long personaId);
+}
@@ -1,16 +1,26 @@
 package com.example.demo.data.local;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
+import android.database.Cursor;
 
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
 
 import com.example.demo.data.model.ChatHistory;
+import com.example.demo.data.model.ConversationSummary;
 import com.example.demo.model.OtherPersona;
 import com.example.demo.model.UserPersona;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 本地数据源类
@@ -19,11 +29,45 @@ import java.util.concurrent.Executors;
  */
 public class LocalDataSource {
 
+    /**
+     * 聊天记录逐行访问接口
+     * 用于流式读取游标，避免一次性构建完整的记录列表
+     */
+    public interface ChatHistoryVisitor {
+        /**
+         * 访问一条聊天记录
+         * @param chatHistory 当前行的聊天记录
+         * @return 继续读取下一行返回true，提前结束返回false
+         */
+        boolean visit(ChatHistory chatHistory);
+    }
+
     // 单例实例
     private static volatile LocalDataSource instance;
+
+    // 聊天记录写入的合并窗口（毫秒），窗口内的插入和状态更新在一个事务中提交
+    private static final long WRITE_BEHIND_WINDOW_MILLIS = 200;
     
-    // 线程池，用于执行后台数据库操作
-    private final ExecutorService executorService;
+    // 单条批量UPDATE语句最多包含的消息ID数，低于SQLite默认的999个参数限制
+    private static final int MAX_BATCH_UPDATE_IDS = 500;
+
+    // 线程池，用于执行后台数据库操作和定时批量写入
+    private final ScheduledExecutorService executorService;
+
+    // 数据库实例，用于批量写入时开启事务
+    private final AppDatabase database;
+
+    // 待写入的聊天记录，由pendingLock保护
+    private final List<ChatHistory> pendingChatInserts = new ArrayList<>();
+
+    // 待写入的打字机完成状态，以消息ID为key，由pendingLock保护
+    private final Map<String, Boolean> pendingTypewriterUpdates = new LinkedHashMap<>();
+
+    // 保护待写入队列的锁
+    private final Object pendingLock = new Object();
+
+    // 是否已安排批量写入
+    private boolean isFlushScheduled = false;
 
     // UserPersona数据访问对象
     private final UserPersonaDao userPersonaDao;
@@ -34,21 +78,44 @@ public class LocalDataSource {
     // ChatHistory数据访问对象
     private final ChatHistoryDao chatHistoryDao;
 
+    // ConversationSummary数据访问对象
+    private final ConversationSummaryDao conversationSummaryDao;
+
     /**
      * 私有构造函数，防止外部实例化
      * @param context 上下文
      */
     private LocalDataSource(Context context) {
         // 获取数据库实例
-        AppDatabase database = AppDatabase.getInstance(context);
+        this.database = AppDatabase.getInstance(context);
         // 获取PersonaDao实例
         this.userPersonaDao = database.userPersonaDao();
         // 获取OtherPersonaDao实例
         this.otherPersonaDao = database.otherPersonaDao();
         // 获取ChatHistoryDao实例
         this.chatHistoryDao = database.chatHistoryDao();
+        // 获取ConversationSummaryDao实例
+        this.conversationSummaryDao = database.conversationSummaryDao();
         // 创建单线程线程池，确保数据库操作顺序执行
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = Executors.newSingleThreadScheduledExecutor();
+        // 应用退到后台时立即提交待写入的聊天记录，降低进程被回收时丢数据的风险
+        context.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_UI_HIDDEN) {
+                    flushPendingWrites();
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                flushPendingWrites();
+            }
+        });
     }
     
     /**
@@ -133,12 +200,29 @@ public class LocalDataSource {
     
     /**
      * 插入聊天记录
+     * 写入会延迟最多WRITE_BEHIND_WINDOW_MILLIS毫秒，与窗口内的其他写入合并为一个事务
      * @param chatHistory 聊天记录对象
      */
     public void insertChatHistory(ChatHistory chatHistory) {
-        executorService.execute(() -> chatHistoryDao.insert(chatHistory));
+        // 加入写入队列，在合并窗口结束时与其他写入一起批量提交
+        synchronized (pendingLock) {
+            pendingChatInserts.add(chatHistory);
+            scheduleFlushLocked();
+        }
     }
     
+    /**
+     * 分段批量更新打字机完成状态，每段不超过SQLite的参数个数限制
+     * @param messageIds 消息ID列表
+     * @param isComplete 打字机效果是否已完成
+     */
+    private void updateTypewriterStatusInChunks(List<String> messageIds, boolean isComplete) {
+        for (int start = 0; start < messageIds.size(); start += MAX_BATCH_UPDATE_IDS) {
+            int end = Math.min(start + MAX_BATCH_UPDATE_IDS, messageIds.size());
+            chatHistoryDao.updateTypewriterStatusBatch(messageIds.subList(start, end), isComplete);
+        }
+    }
+
     /**
      * 同步获取聊天历史记录
      * @param personaType Persona类型（"user"或"other"）
@@ -146,15 +230,165 @@ public class LocalDataSource {
      * @return 聊天历史记录列表
      */
     public List<ChatHistory> getChatHistoryByPersonaSync(String personaType, long personaId) {
+        flushPendingWritesAndWait();
         return chatHistoryDao.getChatHistoryByPersonaSync(personaType, personaId);
     }
     
+    /**
+     * 同步查询早于指定游标的一页聊天记录
+     * @param personaType Persona类型（"user"或"other"）
+     * @param personaId 关联的Persona ID
+     * @param beforeTimestamp 上一页最早一条记录的时间戳
+     * @param beforeId 上一页最早一条记录的主键ID
+     * @param limit 每页条数
+     * @return 按时间从新到旧排序的聊天记录
+     */
+    public List<ChatHistory> getChatHistoryPageBeforeSync(String personaType, long personaId, long beforeTimestamp, long beforeId, int limit) {
+        flushPendingWritesAndWait();
+        return chatHistoryDao.getChatHistoryPageBefore(personaType, personaId, beforeTimestamp, beforeId, limit);
+    }
+    
+    /**
+     * 按时间从新到旧逐行读取聊天历史记录
+     * 需在后台线程调用，visitor返回false时立即停止读取并关闭游标
+     * @param personaType Persona类型（"user"或"other"）
+     * @param personaId 关联的Persona ID
+     * @param visitor 逐行访问接口
+     */
+    public void forEachChatHistoryNewestFirst(String personaType, long personaId, ChatHistoryVisitor visitor) {
+        flushPendingWritesAndWait();
+        try (Cursor cursor = chatHistoryDao.getChatHistoryCursorNewestFirst(personaType, personaId)) {
+            int idIndex = cursor.getColumnIndexOrThrow("id");
+            int personaIdIndex = cursor.getColumnIndexOrThrow("persona_id");
+            int personaTypeIndex = cursor.getColumnIndexOrThrow("persona_type");
+            int messageIdIndex = cursor.getColumnIndexOrThrow("message_id");
+            int textIndex = cursor.getColumnIndexOrThrow("text");
+            int isSentByUserIndex = cursor.getColumnIndexOrThrow("is_sent_by_user");
+            int avatarDrawableIdIndex = cursor.getColumnIndexOrThrow("avatar_drawable_id");
+            int avatarUriIndex = cursor.getColumnIndexOrThrow("avatar_uri");
+            int timestampIndex = cursor.getColumnIndexOrThrow("timestamp");
+            int isTypewriterCompleteIndex = cursor.getColumnIndexOrThrow("is_typewriter_complete");
+
+            while (cursor.moveToNext()) {
+                ChatHistory chatHistory = new ChatHistory(
+                        cursor.getLong(personaIdIndex),
+                        cursor.getString(personaTypeIndex),
+                        cursor.getString(messageIdIndex),
+                        cursor.getString(textIndex),
+                        cursor.getInt(isSentByUserIndex) != 0,
+                        cursor.getInt(avatarDrawableIdIndex),
+                        cursor.isNull(avatarUriIndex) ? null : cursor.getString(avatarUriIndex),
+                        cursor.getLong(timestampIndex),
+                        cursor.getInt(isTypewriterCompleteIndex) != 0
+                );
+                chatHistory.setId(cursor.getLong(idIndex));
+                if (!visitor.visit(chatHistory)) {
+                    break;
+                }
+            }
+        }
+    }
+    
     /**
      * 更新消息的打字机完成状态
      * @param messageId 消息ID
      * @param isComplete 打字机效果是否已完成
      */
     public void updateTypewriterStatus(String messageId, boolean isComplete) {
-        executorService.execute(() -> chatHistoryDao.updateTypewriterStatus(messageId, isComplete));
+        synchronized (pendingLock) {
+            // 消息还在插入队列中时直接修改待插入的记录，随插入一起写入，不再单独UPDATE
+            for (int i = pendingChatInserts.size() - 1; i >= 0; i--) {
+                ChatHistory pending = pendingChatInserts.get(i);
+                if (messageId.equals(pending.getMessageId())) {
+                    pending.setTypewriterComplete(isComplete);
+                    return;
+                }
+            }
+            // 否则加入状态队列，同一消息的多次更新只保留最后一次
+            pendingTypewriterUpdates.put(messageId, isComplete);
+            scheduleFlushLocked();
+        }
+    }
+
+    /**
+     * 保存Persona的对话摘要，覆盖已有的摘要
+     * @param conversationSummary 对话摘要对象
+     */
+    public void saveConversationSummary(ConversationSummary conversationSummary) {
+        executorService.execute(() -> conversationSummaryDao.insert(conversationSummary));
+    }
+
+    /**
+     * 同步获取Persona的对话摘要，需在后台线程调用
+     * @param personaType Persona类型（"user"或"other"）
+     * @param personaId 关联的Persona ID
+     * @return 对话摘要，没有时返回null
+     */
+    public ConversationSummary getConversationSummarySync(String personaType, long personaId) {
+        return conversationSummaryDao.getSummarySync(personaType, personaId);
+    }
+
+    /**
+     * 立即提交所有待写入的聊天记录（异步执行）
+     * 在界面onStop或应用退到后台时调用
+     */
+    public void flushPendingWrites() {
+        executorService.execute(this::flushPendingWritesOnExecutor);
+    }
+
+    /**
+     * 立即提交所有待写入的聊天记录，并等待提交完成
+     * 在读取聊天记录前调用，保证读到刚写入的数据；不能在数据库线程上调用
+     */
+    private void flushPendingWritesAndWait() {
+        try {
+            executorService.submit(this::flushPendingWritesOnExecutor).get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 安排一次批量写入，调用方需持有pendingLock
+     */
+    private void scheduleFlushLocked() {
+        if (!isFlushScheduled) {
+            isFlushScheduled = true;
+            executorService.schedule(this::flushPendingWritesOnExecutor, WRITE_BEHIND_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 在数据库线程上把待写入队列中的所有记录放在一个事务中提交
+     */
+    private void flushPendingWritesOnExecutor() {
+        List<ChatHistory> inserts;
+        Map<String, Boolean> typewriterUpdates;
+        synchronized (pendingLock) {
+            isFlushScheduled = false;
+            if (pendingChatInserts.isEmpty() && pendingTypewriterUpdates.isEmpty()) {
+                return;
+            }
+            inserts = new ArrayList<>(pendingChatInserts);
+            typewriterUpdates = new LinkedHashMap<>(pendingTypewriterUpdates);
+            pendingChatInserts.clear();
+            pendingTypewriterUpdates.clear();
+        }
+
+        database.runInTransaction(() -> {
+            if (!inserts.isEmpty()) {
+                chatHistoryDao.insertAll(inserts);
+            }
+            // 按目标状态分组，每组用一条UPDATE ... IN语句批量更新
+            List<String> completedIds = new ArrayList<>();
+            List<String> incompleteIds = new ArrayList<>();
+            for (Map.Entry<String, Boolean> entry : typewriterUpdates.entrySet()) {
+                (entry.getValue() ? completedIds : incompleteIds).add(entry.getKey());
+            }
+            updateTypewriterStatusInChunks(completedIds, true);
+            updateTypewriterStatusInChunks(incompleteIds, false);
+        });
     }
 }
\ No newline at end of file
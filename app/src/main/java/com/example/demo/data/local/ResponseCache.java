@@ -0,0 +1,271 @@
+package com.example.demo.data.local;
+
+import android.content.Context;
+
+import com.example.demo.data.remote.ApiMetrics;
+import com.example.demo.data.remote.model.ApiRequestMessage;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * AI回复磁盘缓存
+ * 以请求内容的SHA-256作为key，把模型回复保存在应用缓存目录中，相同的请求可以直接返回本地结果
+ * key由模型名、temperature和归一化后的消息组成：去掉提示中的随机请求编号，合并连续空白
+ * 总大小超过上限时按最近最少使用的顺序淘汰，超过有效期的条目读取时视为未命中
+ * 命中、未命中和淘汰次数记录在ApiMetrics中
+ * 创建实例不访问磁盘；get和put会读写磁盘，第一次调用时还会扫描缓存目录，需在后台线程调用
+ */
+public class ResponseCache {
+
+    // 缓存目录名
+    private static final String DIRECTORY_NAME = "ai_response_cache";
+
+    // 默认的缓存总大小上限（字节）
+    public static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    // 默认的有效期（毫秒）
+    public static final long DEFAULT_TTL_MILLIS = 24L * 60 * 60 * 1000;
+
+    // 提示中用于避免重复回复的随机请求编号
+    private static final Pattern NONCE_PATTERN = Pattern.compile("\\(请求编号: \\d+\\)");
+
+    // 连续空白
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    // 单例实例
+    private static ResponseCache instance;
+
+    // 缓存目录
+    private final File directory;
+
+    // 缓存总大小上限（字节）
+    private final long maxBytes;
+
+    // 有效期（毫秒）
+    private final long ttlMillis;
+
+    // 缓存条目的文件大小，按访问顺序排列，最久未使用的在最前面
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // 当前缓存总大小（字节）
+    private long totalBytes = 0;
+
+    // 是否已读取目录中已有的缓存文件
+    private boolean loaded = false;
+
+    /**
+     * 构造函数，不访问磁盘，可以在主线程创建
+     * 缓存目录和已有条目在第一次读写时才在调用线程上加载
+     * @param directory 缓存目录
+     * @param maxBytes 缓存总大小上限（字节）
+     * @param ttlMillis 有效期（毫秒）
+     */
+    public ResponseCache(File directory, long maxBytes, long ttlMillis) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 首次使用时创建缓存目录，读取目录中已有的缓存文件，按最后修改时间恢复使用顺序
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File[] files = directory.listFiles();
+        if (files != null) {
+            Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+            for (File file : files) {
+                entries.put(file.getName(), file.length());
+                totalBytes += file.length();
+            }
+        }
+    }
+
+    /**
+     * 获取单例实例，缓存位于应用的缓存目录中，系统空间不足时可能被清理
+     * 只创建对象，不访问磁盘，可以在主线程调用
+     * @param context 上下文
+     * @return ResponseCache的单例实例
+     */
+    public static synchronized ResponseCache getInstance(Context context) {
+        if (instance == null) {
+            File directory = new File(context.getApplicationContext().getCacheDir(), DIRECTORY_NAME);
+            instance = new ResponseCache(directory, DEFAULT_MAX_BYTES, DEFAULT_TTL_MILLIS);
+        }
+        return instance;
+    }
+
+    /**
+     * 计算请求的缓存key
+     * @param model 模型名称
+     * @param temperature 请求使用的temperature，使用服务器默认值时为null
+     * @param messages 决定回复内容的提示消息
+     * @return 64位十六进制字符串
+     */
+    public static String keyFor(String model, Float temperature, List<ApiRequestMessage> messages) {
+        StringBuilder normalized = new StringBuilder();
+        normalized.append(model).append('\n').append(temperature).append('\n');
+        if (messages != null) {
+            for (ApiRequestMessage message : messages) {
+                normalized.append(message.getRole()).append('\n')
+                        .append(normalize(message.getContent())).append('\n');
+            }
+        }
+        return sha256Hex(normalized.toString());
+    }
+
+    /**
+     * 读取缓存的回复
+     * @param key 缓存key
+     * @return 回复内容，未命中或已过期时返回null
+     */
+    public synchronized String get(String key) {
+        ensureLoaded();
+        ApiMetrics metrics = ApiMetrics.getInstance();
+        // 使用get而不是containsKey，同时更新访问顺序
+        if (entries.get(key) == null) {
+            metrics.increment("response_cache.miss");
+            return null;
+        }
+        File file = new File(directory, key);
+        if (System.currentTimeMillis() - file.lastModified() > ttlMillis) {
+            remove(key);
+            metrics.increment("response_cache.expired");
+            metrics.increment("response_cache.miss");
+            return null;
+        }
+        try {
+            String value = new String(readFully(file), StandardCharsets.UTF_8);
+            metrics.increment("response_cache.hit");
+            return value;
+        } catch (IOException e) {
+            remove(key);
+            metrics.increment("response_cache.miss");
+            return null;
+        }
+    }
+
+    /**
+     * 保存回复，超出大小上限时淘汰最久未使用的条目
+     * @param key 缓存key
+     * @param value 回复内容
+     */
+    public synchronized void put(String key, String value) {
+        ensureLoaded();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes) {
+            return;
+        }
+        remove(key);
+        File file = new File(directory, key);
+        try (OutputStream output = new FileOutputStream(file)) {
+            output.write(bytes);
+        } catch (IOException e) {
+            // 写入失败时不缓存，不影响正常使用
+            file.delete();
+            return;
+        }
+        entries.put(key, (long) bytes.length);
+        totalBytes += bytes.length;
+        trimToSize();
+    }
+
+    /**
+     * 删除缓存条目
+     * @param key 缓存key
+     */
+    private void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+            new File(directory, key).delete();
+        }
+    }
+
+    /**
+     * 淘汰最久未使用的条目，直到总大小不超过上限
+     */
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            totalBytes -= eldest.getValue();
+            new File(directory, eldest.getKey()).delete();
+            iterator.remove();
+            ApiMetrics.getInstance().increment("response_cache.evicted");
+        }
+    }
+
+    /**
+     * 归一化提示内容：去掉随机请求编号，合并连续空白
+     * @param content 提示内容
+     * @return 归一化后的内容
+     */
+    private static String normalize(String content) {
+        if (content == null) {
+            return "";
+        }
+        String withoutNonce = NONCE_PATTERN.matcher(content).replaceAll("");
+        return WHITESPACE_PATTERN.matcher(withoutNonce).replaceAll(" ").trim();
+    }
+
+    /**
+     * 计算SHA-256并转为十六进制
+     * @param text 输入文本
+     * @return 十六进制字符串
+     */
+    private static String sha256Hex(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // 所有Java平台都必须支持SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读取文件的全部内容
+     * @param file 文件
+     * @return 文件内容
+     * @throws IOException 读取失败时抛出
+     */
+    private static byte[] readFully(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        try (InputStream input = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = input.read(bytes, offset, bytes.length - offset);
+                if (read < 0) {
+                    throw new IOException("缓存文件被截断: " + file.getName());
+                }
+                offset += read;
+            }
+        }
+        return bytes;
+    }
+}
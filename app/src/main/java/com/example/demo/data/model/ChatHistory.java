@@ -3,13 +3,19 @@ package com.example.demo.data.model;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
  * 聊天历史记录数据模型类
  * 表示聊天应用中的一条历史消息，用于本地数据库存储
+ * 复合索引覆盖按Persona过滤并按时间排序的查询，message_id唯一索引用于按消息更新状态
  */
-@Entity(tableName = "chat_history")
+@Entity(tableName = "chat_history",
+        indices = {
+                @Index(value = {"persona_type", "persona_id", "timestamp"}),
+                @Index(value = {"message_id"}, unique = true)
+        })
 public class ChatHistory {
 
     // 主键，自增
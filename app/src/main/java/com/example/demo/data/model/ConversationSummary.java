@@ -0,0 +1,81 @@
+package com.example.demo.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * 对话摘要数据模型类
+ * 保存每个Persona对话中较早轮次的摘要，冷启动时与最近的聊天记录一起恢复API上下文
+ * 每个Persona只有一条摘要，新摘要覆盖旧摘要
+ */
+@Entity(tableName = "conversation_summary", primaryKeys = {"persona_type", "persona_id"})
+public class ConversationSummary {
+
+    // Persona类型（"user"或"other"）
+    @NonNull
+    @ColumnInfo(name = "persona_type")
+    private String personaType;
+
+    // 关联的Persona ID
+    @ColumnInfo(name = "persona_id")
+    private long personaId;
+
+    // 摘要正文
+    @NonNull
+    @ColumnInfo(name = "summary")
+    private String summary;
+
+    // 摘要覆盖的最后一条聊天记录的消息ID，更早的记录不再恢复到API上下文
+    @ColumnInfo(name = "last_message_id")
+    private String lastMessageId;
+
+    /**
+     * 构造函数
+     * @param personaType Persona类型（"user"或"other"）
+     * @param personaId 关联的Persona ID
+     * @param summary 摘要正文
+     * @param lastMessageId 摘要覆盖的最后一条聊天记录的消息ID，可以为null
+     */
+    public ConversationSummary(@NonNull String personaType, long personaId, @NonNull String summary, String lastMessageId) {
+        this.personaType = personaType;
+        this.personaId = personaId;
+        this.summary = summary;
+        this.lastMessageId = lastMessageId;
+    }
+
+    // Getter和Setter方法
+    @NonNull
+    public String getPersonaType() {
+        return personaType;
+    }
+
+    public void setPersonaType(@NonNull String personaType) {
+        this.personaType = personaType;
+    }
+
+    public long getPersonaId() {
+        return personaId;
+    }
+
+    public void setPersonaId(long personaId) {
+        this.personaId = personaId;
+    }
+
+    @NonNull
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(@NonNull String summary) {
+        this.summary = summary;
+    }
+
+    public String getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(String lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+}
@@ -1,6 +1,21 @@
 package com.example.demo.data.remote;
 
+import com.example.demo.BuildConfig;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
 
 import retrofit2.Retrofit;
@@ -16,23 +31,115 @@ public class ApiClient {
     // API基础URL
     public static final String BASE_URL = "https://api.moonshot.cn/";
 
+    // 客户端配置，需在第一次创建Retrofit之前设置
+    private static ApiClientProfile profile = ApiClientProfile.defaultProfile();
+    // OkHttp客户端实例，单例模式，所有请求共用同一个连接池
+    private static OkHttpClient okHttpClient = null;
     // Retrofit实例，单例模式
     private static Retrofit retrofit = null;
     // API服务接口实例，单例模式
     private static ApiService apiService = null;
 
+    /**
+     * 设置客户端配置
+     * 在Application.onCreate()中调用，必须在第一次调用getApiService()之前，之后调用不会生效
+     * @param clientProfile 客户端配置
+     */
+    public static synchronized void configure(ApiClientProfile clientProfile) {
+        if (okHttpClient == null) {
+            profile = clientProfile;
+        }
+    }
+
+    /**
+     * 获取当前客户端配置
+     * @return 客户端配置
+     */
+    public static synchronized ApiClientProfile getProfile() {
+        return profile;
+    }
+
     /**
      * 获取API服务接口实例
      * 使用单例模式确保只有一个实例
      * @return ApiService实例
      */
-    public static ApiService getApiService() {
+    public static synchronized ApiService getApiService() {
         if (apiService == null) {
             apiService = getRetrofit().create(ApiService.class);
         }
         return apiService;
     }
 
+    /**
+     * 预先建立到API服务器的连接
+     * 在应用启动时调用，DNS解析、TCP和TLS握手提前完成，首次聊天请求可直接复用连接池中的连接
+     * 请求在OkHttp的后台线程执行，结果被忽略
+     * 预热请求不经过应用拦截器，也不记录调用指标，避免影响熔断器状态、重试和接口统计
+     */
+    public static void prewarmConnection() {
+        if (!getProfile().isPrewarmEnabled()) {
+            return;
+        }
+        Request request = new Request.Builder()
+                .url(getProfile().getBaseUrl())
+                .head()
+                .build();
+        // 派生的客户端与共享客户端使用同一个连接池，预热建立的连接可以被后续请求复用
+        OkHttpClient.Builder builder = getOkHttpClient().newBuilder();
+        builder.interceptors().clear();
+        builder.eventListener(EventListener.NONE);
+        builder.build().newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                // 预热失败不影响正常请求
+            }
+        });
+    }
+
+    /**
+     * 获取OkHttp客户端实例
+     * 按照客户端配置设置超时、连接池、协议和拦截器
+     * @return OkHttpClient实例
+     */
+    static synchronized OkHttpClient getOkHttpClient() {
+        if (okHttpClient == null) {
+            // 配置OkHttpClient
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .connectTimeout(profile.getConnectTimeoutSeconds(), TimeUnit.SECONDS)
+                    .readTimeout(profile.getReadTimeoutSeconds(), TimeUnit.SECONDS)
+                    .writeTimeout(profile.getWriteTimeoutSeconds(), TimeUnit.SECONDS)
+                    .callTimeout(profile.getCallTimeoutSeconds(), TimeUnit.SECONDS)
+                    .connectionPool(new ConnectionPool(profile.getMaxIdleConnections(),
+                            profile.getKeepAliveMinutes(), TimeUnit.MINUTES))
+                    .protocols(profile.isPreferHttp2()
+                            ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                            : Collections.singletonList(Protocol.HTTP_1_1))
+                    // 重试拦截器放在最前面，每次重试都会重新经过压缩和日志拦截器
+                    .addInterceptor(new RetryInterceptor(profile.getMaxRetries(),
+                            new CircuitBreaker(profile.getCircuitBreakerFailureThreshold(),
+                                    profile.getCircuitBreakerOpenSeconds() * 1000L)))
+                    // 限流拦截器放在重试之后，每次重试同样占用限额
+                    .addInterceptor(new RateLimitInterceptor(ApiRateLimiter.getInstance()))
+                    .addInterceptor(new StreamTimeoutInterceptor(profile.getStreamReadTimeoutSeconds()))
+                    .eventListenerFactory(MetricsEventListener.FACTORY); // 记录每次调用的阶段耗时和字节数
+            if (BuildConfig.DEBUG) {
+                // 日志拦截器只在调试版本中添加，发布版本不缓冲和打印请求体
+                // 放在压缩拦截器之前，打印的是压缩前的JSON请求体
+                builder.addInterceptor(new DebugLoggingInterceptor());
+            }
+            builder.addInterceptor(new GzipRequestInterceptor(profile.isRequestCompressionEnabled(),
+                    profile.getMinCompressBytes()));
+            okHttpClient = builder.build();
+        }
+        return okHttpClient;
+    }
+
     /**
      * 获取Retrofit实例
      * 配置HTTP客户端和转换器
@@ -40,22 +147,71 @@ public class ApiClient {
      */
     private static Retrofit getRetrofit() {
         if (retrofit == null) {
-            // 创建HTTP日志拦截器，用于调试
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            // 配置OkHttpClient
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(logging) // 添加日志拦截器
-                    .build();
-
             // 创建Retrofit实例
             retrofit = new Retrofit.Builder()
-                    .baseUrl(BASE_URL) // 设置基础URL
-                    .client(client) // 设置自定义HTTP客户端
+                    .baseUrl(profile.getBaseUrl()) // 设置基础URL
+                    .client(getOkHttpClient()) // 设置自定义HTTP客户端
+                    .addConverterFactory(ApiConverterFactory.create()) // 增量编码聊天请求、流式解析聊天响应
                     .addConverterFactory(GsonConverterFactory.create()) // 添加Gson转换器，用于JSON解析
                     .build();
         }
         return retrofit;
     }
-}
\ No newline at end of file
+
+    /**
+     * 调试日志拦截器
+     * 普通请求打印完整的请求体和响应体；流式请求只打印请求头和响应头，
+     * 因为BODY级别会把整个响应流读入缓冲区后才交给调用方，增量无法及时显示
+     */
+    private static class DebugLoggingInterceptor implements Interceptor {
+
+        // 打印请求体和响应体的日志拦截器
+        private final HttpLoggingInterceptor bodyLogging = new HttpLoggingInterceptor()
+                .setLevel(HttpLoggingInterceptor.Level.BODY);
+
+        // 只打印请求头和响应头的日志拦截器
+        private final HttpLoggingInterceptor headersLogging = new HttpLoggingInterceptor()
+                .setLevel(HttpLoggingInterceptor.Level.HEADERS);
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            if (isEventStream(chain.request())) {
+                return headersLogging.intercept(chain);
+            }
+            return bodyLogging.intercept(chain);
+        }
+    }
+
+    /**
+     * 判断请求是否为流式请求
+     * @param request 请求对象
+     * @return Accept为text/event-stream时返回true
+     */
+    private static boolean isEventStream(Request request) {
+        String accept = request.header("Accept");
+        return accept != null && accept.contains("text/event-stream");
+    }
+
+    /**
+     * 流式请求超时拦截器
+     * 对Accept为text/event-stream的请求使用更宽松的读取超时，其余请求沿用客户端默认值
+     */
+    private static class StreamTimeoutInterceptor implements Interceptor {
+
+        // 流式请求的读取超时时间（秒）
+        private final int streamReadTimeoutSeconds;
+
+        StreamTimeoutInterceptor(int streamReadTimeoutSeconds) {
+            this.streamReadTimeoutSeconds = streamReadTimeoutSeconds;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            if (isEventStream(request)) {
+                return chain.withReadTimeout(streamReadTimeoutSeconds, TimeUnit.SECONDS).proceed(request);
+            }
+            return chain.proceed(request);
+        }
+    }
+}
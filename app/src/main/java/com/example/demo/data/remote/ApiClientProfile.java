@@ -0,0 +1,227 @@
+package com.example.demo.data.remote;
+
+/**
+ * API客户端配置
+ * 集中保存OkHttpClient的超时、连接池、协议和压缩设置
+ * 在第一次调用ApiClient.getApiService()之前通过ApiClient.configure()传入，之后修改不再生效
+ * 测试时可以把baseUrl指向本地MockWebServer，对比冷启动延迟和传输字节数
+ */
+public class ApiClientProfile {
+
+    // API基础URL
+    private String baseUrl = ApiClient.BASE_URL;
+
+    // 建立连接的超时时间（秒）
+    private int connectTimeoutSeconds = 10;
+
+    // 普通请求读取响应的超时时间（秒）
+    private int readTimeoutSeconds = 60;
+
+    // 流式请求两次数据到达之间的最长间隔（秒），模型思考时间较长，需要比普通请求宽松
+    private int streamReadTimeoutSeconds = 90;
+
+    // 写入请求体的超时时间（秒）
+    private int writeTimeoutSeconds = 30;
+
+    // 普通请求从发起到读完响应的总超时时间（秒），0表示不限制
+    private int callTimeoutSeconds = 90;
+
+    // 流式请求的总超时时间（秒），0表示不限制
+    private int streamCallTimeoutSeconds = 300;
+
+    // 连接池保留的最大空闲连接数，应用只访问一个域名，少量连接即可复用
+    private int maxIdleConnections = 4;
+
+    // 空闲连接的保活时间（分钟），聊天间隔通常较长，保活时间长一些可以少做TLS握手
+    private int keepAliveMinutes = 5;
+
+    // 是否优先使用HTTP/2，在一个连接上复用多个并发请求
+    private boolean preferHttp2 = true;
+
+    // 是否gzip压缩请求体，服务器拒绝时会自动关闭
+    private boolean requestCompressionEnabled = false;
+
+    // 请求体小于该字节数时不压缩，压缩收益抵不上CPU开销
+    private int minCompressBytes = 1024;
+
+    // 是否在应用启动时预先建立连接
+    private boolean prewarmEnabled = true;
+
+    // 429和5xx响应的最大重试次数
+    private int maxRetries = 3;
+
+    // 连续失败多少次后熔断
+    private int circuitBreakerFailureThreshold = 5;
+
+    // 熔断后的冷却时间（秒）
+    private int circuitBreakerOpenSeconds = 30;
+
+    // 一次性的JSON生成请求是否使用API的JSON响应格式
+    private boolean structuredOutputEnabled = true;
+
+    // 每分钟最多请求数，所有仓库共用
+    private int requestsPerMinute = 60;
+
+    // 每分钟最多发送的token数，所有仓库共用
+    private int tokensPerMinute = 64000;
+
+    /**
+     * 获取默认配置
+     * @return 新的默认配置对象
+     */
+    public static ApiClientProfile defaultProfile() {
+        return new ApiClientProfile();
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public int getConnectTimeoutSeconds() {
+        return connectTimeoutSeconds;
+    }
+
+    public void setConnectTimeoutSeconds(int connectTimeoutSeconds) {
+        this.connectTimeoutSeconds = connectTimeoutSeconds;
+    }
+
+    public int getReadTimeoutSeconds() {
+        return readTimeoutSeconds;
+    }
+
+    public void setReadTimeoutSeconds(int readTimeoutSeconds) {
+        this.readTimeoutSeconds = readTimeoutSeconds;
+    }
+
+    public int getStreamReadTimeoutSeconds() {
+        return streamReadTimeoutSeconds;
+    }
+
+    public void setStreamReadTimeoutSeconds(int streamReadTimeoutSeconds) {
+        this.streamReadTimeoutSeconds = streamReadTimeoutSeconds;
+    }
+
+    public int getWriteTimeoutSeconds() {
+        return writeTimeoutSeconds;
+    }
+
+    public void setWriteTimeoutSeconds(int writeTimeoutSeconds) {
+        this.writeTimeoutSeconds = writeTimeoutSeconds;
+    }
+
+    public int getCallTimeoutSeconds() {
+        return callTimeoutSeconds;
+    }
+
+    public void setCallTimeoutSeconds(int callTimeoutSeconds) {
+        this.callTimeoutSeconds = callTimeoutSeconds;
+    }
+
+    public int getStreamCallTimeoutSeconds() {
+        return streamCallTimeoutSeconds;
+    }
+
+    public void setStreamCallTimeoutSeconds(int streamCallTimeoutSeconds) {
+        this.streamCallTimeoutSeconds = streamCallTimeoutSeconds;
+    }
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public void setMaxIdleConnections(int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+    }
+
+    public int getKeepAliveMinutes() {
+        return keepAliveMinutes;
+    }
+
+    public void setKeepAliveMinutes(int keepAliveMinutes) {
+        this.keepAliveMinutes = keepAliveMinutes;
+    }
+
+    public boolean isPreferHttp2() {
+        return preferHttp2;
+    }
+
+    public void setPreferHttp2(boolean preferHttp2) {
+        this.preferHttp2 = preferHttp2;
+    }
+
+    public boolean isRequestCompressionEnabled() {
+        return requestCompressionEnabled;
+    }
+
+    public void setRequestCompressionEnabled(boolean requestCompressionEnabled) {
+        this.requestCompressionEnabled = requestCompressionEnabled;
+    }
+
+    public int getMinCompressBytes() {
+        return minCompressBytes;
+    }
+
+    public void setMinCompressBytes(int minCompressBytes) {
+        this.minCompressBytes = minCompressBytes;
+    }
+
+    public boolean isPrewarmEnabled() {
+        return prewarmEnabled;
+    }
+
+    public void setPrewarmEnabled(boolean prewarmEnabled) {
+        this.prewarmEnabled = prewarmEnabled;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public int getCircuitBreakerFailureThreshold() {
+        return circuitBreakerFailureThreshold;
+    }
+
+    public void setCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+        this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+    }
+
+    public int getCircuitBreakerOpenSeconds() {
+        return circuitBreakerOpenSeconds;
+    }
+
+    public void setCircuitBreakerOpenSeconds(int circuitBreakerOpenSeconds) {
+        this.circuitBreakerOpenSeconds = circuitBreakerOpenSeconds;
+    }
+
+    public boolean isStructuredOutputEnabled() {
+        return structuredOutputEnabled;
+    }
+
+    public void setStructuredOutputEnabled(boolean structuredOutputEnabled) {
+        this.structuredOutputEnabled = structuredOutputEnabled;
+    }
+
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    public void setRequestsPerMinute(int requestsPerMinute) {
+        this.requestsPerMinute = requestsPerMinute;
+    }
+
+    public int getTokensPerMinute() {
+        return tokensPerMinute;
+    }
+
+    public void setTokensPerMinute(int tokensPerMinute) {
+        this.tokensPerMinute = tokensPerMinute;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.data.remote;
+
+import com.example.demo.data.remote.model.ApiRequest;
+import com.example.demo.data.remote.model.ApiResponse;
+import com.example.demo.data.remote.model.ApiUsage;
+import com.google.gson.stream.JsonReader;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * 聊天请求和响应转换器工厂
+ * ApiRequest请求体使用ApiRequestBody拼接缓存的消息字节，ApiResponse响应体使用ApiResponseParser流式解析；
+ * 其他类型交给后面的Gson转换器
+ * 需要在GsonConverterFactory之前注册
+ */
+public class ApiConverterFactory extends Converter.Factory {
+
+    /**
+     * 创建转换器工厂
+     * @return 转换器工厂实例
+     */
+    public static ApiConverterFactory create() {
+        return new ApiConverterFactory();
+    }
+
+    private ApiConverterFactory() {
+    }
+
+    @Override
+    public Converter<?, RequestBody> requestBodyConverter(Type type, Annotation[] parameterAnnotations,
+                                                          Annotation[] methodAnnotations, Retrofit retrofit) {
+        if (type != ApiRequest.class) {
+            return null;
+        }
+        return (Converter<ApiRequest, RequestBody>) ApiRequestBody::new;
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (type != ApiResponse.class) {
+            return null;
+        }
+        return (Converter<ResponseBody, ApiResponse>) body -> {
+            try (JsonReader reader = new JsonReader(body.charStream())) {
+                ApiResponse response = ApiResponseParser.parse(reader);
+                recordUsage(response.getUsage());
+                return response;
+            }
+        };
+    }
+
+    /**
+     * 记录服务器返回的实际token用量
+     * @param usage token用量，可能为null
+     */
+    private static void recordUsage(ApiUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        ApiMetrics metrics = ApiMetrics.getInstance();
+        metrics.add("usage.prompt_tokens", usage.getPromptTokens());
+        metrics.add("usage.completion_tokens", usage.getCompletionTokens());
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.demo.data.remote;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API调用指标
+ * 汇总每次HTTP调用的阶段耗时、传输字节数和状态码，并提供命名计数器供其他模块记录缓存命中等事件
+ * 使用单例模式，可以在应用内随时通过getSnapshot()查看当前指标
+ * 调试版本中长按个人资料页的"关于"可以查看快照，应用退到后台时也会打印到日志
+ */
+public class ApiMetrics {
+
+    // 保留最近调用记录的条数
+    private static final int MAX_RECENT_CALLS = 50;
+
+    // 单例实例
+    private static ApiMetrics instance;
+
+    // 最近的调用记录，最新的在队尾
+    private final Deque<CallRecord> recentCalls = new ArrayDeque<>();
+
+    // 命名计数器
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+
+    // 命名的瞬时值，例如排队长度，只保留最新值
+    private final Map<String, Long> gauges = new LinkedHashMap<>();
+
+    // 调用总数
+    private long totalCalls;
+
+    // 失败的调用数（网络错误或非2xx状态码）
+    private long failedCalls;
+
+    // 累计发送的请求体字节数
+    private long totalBytesSent;
+
+    // 累计接收的响应体字节数
+    private long totalBytesReceived;
+
+    /**
+     * 私有构造函数，防止外部实例化
+     */
+    private ApiMetrics() {
+    }
+
+    /**
+     * 获取单例实例
+     * @return ApiMetrics的单例实例
+     */
+    public static synchronized ApiMetrics getInstance() {
+        if (instance == null) {
+            instance = new ApiMetrics();
+        }
+        return instance;
+    }
+
+    /**
+     * 记录一次结束的调用
+     * @param record 调用记录
+     */
+    public synchronized void recordCall(CallRecord record) {
+        totalCalls++;
+        if (!record.isSuccessful()) {
+            failedCalls++;
+        }
+        totalBytesSent += Math.max(record.getRequestBytes(), 0);
+        totalBytesReceived += Math.max(record.getResponseBytes(), 0);
+
+        recentCalls.addLast(record);
+        if (recentCalls.size() > MAX_RECENT_CALLS) {
+            recentCalls.removeFirst();
+        }
+    }
+
+    /**
+     * 计数器加一
+     * @param name 计数器名称
+     */
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * 计数器增加指定值
+     * @param name 计数器名称
+     * @param delta 增加的值
+     */
+    public synchronized void add(String name, long delta) {
+        Long current = counters.get(name);
+        counters.put(name, (current == null ? 0 : current) + delta);
+    }
+
+    /**
+     * 设置瞬时值
+     * @param name 名称
+     * @param value 最新值
+     */
+    public synchronized void setGauge(String name, long value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * 获取当前指标快照
+     * @return 指标快照，之后的调用不会影响该快照
+     */
+    public synchronized Snapshot getSnapshot() {
+        return new Snapshot(totalCalls, failedCalls, totalBytesSent, totalBytesReceived,
+                new ArrayList<>(recentCalls), new LinkedHashMap<>(counters), new LinkedHashMap<>(gauges));
+    }
+
+    /**
+     * 清空所有指标
+     */
+    public synchronized void reset() {
+        recentCalls.clear();
+        counters.clear();
+        gauges.clear();
+        totalCalls = 0;
+        failedCalls = 0;
+        totalBytesSent = 0;
+        totalBytesReceived = 0;
+    }
+
+    /**
+     * 单次调用记录
+     * 各阶段耗时以毫秒为单位，该阶段未发生（例如复用连接时没有DNS和握手）时为-1
+     */
+    public static class CallRecord {
+        // 请求方法和路径
+        private final String endpoint;
+        // HTTP状态码，调用失败时为-1
+        private final int statusCode;
+        // 失败原因，成功时为null
+        private final String error;
+        // DNS解析耗时
+        private final long dnsMillis;
+        // TCP连接耗时（含TLS握手）
+        private final long connectMillis;
+        // TLS握手耗时
+        private final long tlsMillis;
+        // 最后一次尝试从发送完请求到收到响应头的耗时（首字节时间）
+        private final long ttfbMillis;
+        // 调用总耗时，包含限流排队和重试退避
+        private final long totalMillis;
+        // 请求体字节数
+        private final long requestBytes;
+        // 响应体字节数
+        private final long responseBytes;
+
+        public CallRecord(String endpoint, int statusCode, String error, long dnsMillis, long connectMillis,
+                          long tlsMillis, long ttfbMillis, long totalMillis, long requestBytes, long responseBytes) {
+            this.endpoint = endpoint;
+            this.statusCode = statusCode;
+            this.error = error;
+            this.dnsMillis = dnsMillis;
+            this.connectMillis = connectMillis;
+            this.tlsMillis = tlsMillis;
+            this.ttfbMillis = ttfbMillis;
+            this.totalMillis = totalMillis;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+        }
+
+        public boolean isSuccessful() {
+            return error == null && statusCode >= 200 && statusCode < 300;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public long getDnsMillis() {
+            return dnsMillis;
+        }
+
+        public long getConnectMillis() {
+            return connectMillis;
+        }
+
+        public long getTlsMillis() {
+            return tlsMillis;
+        }
+
+        public long getTtfbMillis() {
+            return ttfbMillis;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public long getRequestBytes() {
+            return requestBytes;
+        }
+
+        public long getResponseBytes() {
+            return responseBytes;
+        }
+
+        @Override
+        public String toString() {
+            return endpoint + " " + (error != null ? error : String.valueOf(statusCode))
+                    + " dns=" + dnsMillis + "ms connect=" + connectMillis + "ms tls=" + tlsMillis
+                    + "ms ttfb=" + ttfbMillis + "ms total=" + totalMillis
+                    + "ms sent=" + requestBytes + "B received=" + responseBytes + "B";
+        }
+    }
+
+    /**
+     * 指标快照
+     */
+    public static class Snapshot {
+        private final long totalCalls;
+        private final long failedCalls;
+        private final long totalBytesSent;
+        private final long totalBytesReceived;
+        private final List<CallRecord> recentCalls;
+        private final Map<String, Long> counters;
+        private final Map<String, Long> gauges;
+
+        Snapshot(long totalCalls, long failedCalls, long totalBytesSent, long totalBytesReceived,
+                 List<CallRecord> recentCalls, Map<String, Long> counters, Map<String, Long> gauges) {
+            this.totalCalls = totalCalls;
+            this.failedCalls = failedCalls;
+            this.totalBytesSent = totalBytesSent;
+            this.totalBytesReceived = totalBytesReceived;
+            this.recentCalls = Collections.unmodifiableList(recentCalls);
+            this.counters = Collections.unmodifiableMap(counters);
+            this.gauges = Collections.unmodifiableMap(gauges);
+        }
+
+        public long getTotalCalls() {
+            return totalCalls;
+        }
+
+        public long getFailedCalls() {
+            return failedCalls;
+        }
+
+        public long getTotalBytesSent() {
+            return totalBytesSent;
+        }
+
+        public long getTotalBytesReceived() {
+            return totalBytesReceived;
+        }
+
+        public List<CallRecord> getRecentCalls() {
+            return recentCalls;
+        }
+
+        public Map<String, Long> getCounters() {
+            return counters;
+        }
+
+        public Map<String, Long> getGauges() {
+            return gauges;
+        }
+
+        /**
+         * 获取计数器的值
+         * @param name 计数器名称
+         * @return 计数器的值，不存在时为0
+         */
+        public long getCounter(String name) {
+            Long value = counters.get(name);
+            return value == null ? 0 : value;
+        }
+
+        /**
+         * 计算最近调用首字节时间的百分位数
+         * @param percentile 百分位，取值0到100
+         * @return 首字节时间（毫秒），没有记录时为-1
+         */
+        public long getTtfbPercentile(int percentile) {
+            long[] values = new long[recentCalls.size()];
+            int count = 0;
+            for (CallRecord record : recentCalls) {
+                if (record.getTtfbMillis() >= 0) {
+                    values[count++] = record.getTtfbMillis();
+                }
+            }
+            if (count == 0) {
+                return -1;
+            }
+            Arrays.sort(values, 0, count);
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            return values[Math.max(0, Math.min(index, count - 1))];
+        }
+
+        @Override
+        public String toString() {
+            return "calls=" + totalCalls + " failed=" + failedCalls
+                    + " sent=" + totalBytesSent + "B received=" + totalBytesReceived
+                    + "B ttfbP50=" + getTtfbPercentile(50) + "ms ttfbP90=" + getTtfbPercentile(90)
+                    + "ms counters=" + counters + " gauges=" + gauges;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.demo.data.remote;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+import okhttp3.Call;
+
+/**
+ * API限流器
+ * 进程内所有仓库共用，按每分钟请求数和每分钟token数两个令牌桶控制请求速率
+ * 请求在令牌不足时排队等待，排队按优先级和到达顺序排序，INTERACTIVE请求总是排在BACKGROUND请求之前
+ * 等待时间和排队长度记录在ApiMetrics中
+ */
+public class ApiRateLimiter {
+
+    // 单例实例
+    private static ApiRateLimiter instance;
+
+    // 每分钟请求数令牌桶
+    private final TokenBucket requestBucket;
+
+    // 每分钟token数令牌桶
+    private final TokenBucket tokenBucket;
+
+    // 等待中的请求，队首的请求才能获取令牌
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+
+    // 到达顺序编号，同优先级的请求先到先得
+    private long nextSequence = 0;
+
+    /**
+     * 构造函数
+     * @param requestsPerMinute 每分钟最多请求数
+     * @param tokensPerMinute 每分钟最多token数
+     */
+    public ApiRateLimiter(int requestsPerMinute, int tokensPerMinute) {
+        this.requestBucket = new TokenBucket(requestsPerMinute);
+        this.tokenBucket = new TokenBucket(tokensPerMinute);
+    }
+
+    /**
+     * 获取单例实例，限额取自ApiClient的客户端配置
+     * @return ApiRateLimiter的单例实例
+     */
+    public static synchronized ApiRateLimiter getInstance() {
+        if (instance == null) {
+            ApiClientProfile profile = ApiClient.getProfile();
+            instance = new ApiRateLimiter(profile.getRequestsPerMinute(), profile.getTokensPerMinute());
+        }
+        return instance;
+    }
+
+    /**
+     * 获取一次请求的令牌，令牌不足时阻塞等待
+     * @param priority 请求优先级
+     * @param estimatedTokens 请求预计消耗的token数
+     * @param call 当前调用，等待期间被取消时立即返回
+     * @throws IOException 等待期间调用被取消或线程被中断时抛出
+     */
+    public void acquire(RequestPriority priority, int estimatedTokens, Call call) throws IOException {
+        long startNanos = System.nanoTime();
+        synchronized (this) {
+            Waiter waiter = new Waiter(priority, nextSequence++);
+            waiters.add(waiter);
+            updateQueueDepthLocked();
+            try {
+                while (true) {
+                    if (call.isCanceled()) {
+                        throw new IOException("Canceled");
+                    }
+                    long waitNanos;
+                    if (waiters.peek() == waiter) {
+                        long now = System.nanoTime();
+                        waitNanos = Math.max(requestBucket.nanosUntilAvailable(1, now),
+                                tokenBucket.nanosUntilAvailable(estimatedTokens, now));
+                        if (waitNanos <= 0) {
+                            requestBucket.take(1, now);
+                            tokenBucket.take(estimatedTokens, now);
+                            break;
+                        }
+                    } else {
+                        // 不在队首时等待前面的请求获取令牌后唤醒，定时醒来检查是否被取消
+                        waitNanos = 1_000_000_000L;
+                    }
+                    // 最多等待1秒，期间被取消的请求能及时退出
+                    wait(Math.max(1, Math.min(waitNanos, 1_000_000_000L) / 1_000_000));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Canceled", e);
+            } finally {
+                waiters.remove(waiter);
+                updateQueueDepthLocked();
+                notifyAll();
+            }
+        }
+
+        long waitedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        ApiMetrics metrics = ApiMetrics.getInstance();
+        String suffix = priority.name().toLowerCase(Locale.ROOT);
+        metrics.increment("rate_limiter.acquired." + suffix);
+        metrics.add("rate_limiter.wait_ms." + suffix, waitedMillis);
+        if (waitedMillis > 0) {
+            metrics.increment("rate_limiter.delayed");
+        }
+    }
+
+    /**
+     * 获取当前排队的请求数
+     * @return 排队请求数
+     */
+    public synchronized int getQueueDepth() {
+        return waiters.size();
+    }
+
+    /**
+     * 更新排队长度指标，调用方需持有锁
+     */
+    private void updateQueueDepthLocked() {
+        ApiMetrics.getInstance().setGauge("rate_limiter.queue_depth", waiters.size());
+    }
+
+    /**
+     * 排队中的请求
+     */
+    private static class Waiter implements Comparable<Waiter> {
+        private final RequestPriority priority;
+        private final long sequence;
+
+        Waiter(RequestPriority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * 令牌桶，容量为每分钟的限额，按时间匀速补充
+     */
+    private static class TokenBucket {
+        // 桶容量
+        private final double capacity;
+        // 每纳秒补充的令牌数
+        private final double refillPerNano;
+        // 当前可用令牌数
+        private double available;
+        // 上次补充的时间点
+        private long lastRefillNanos;
+
+        TokenBucket(int perMinute) {
+            this.capacity = Math.max(1, perMinute);
+            this.refillPerNano = capacity / 60_000_000_000.0;
+            this.available = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * 计算距离有足够令牌还需等待的时间
+         * 超过桶容量的请求按满桶计算，避免永远等待
+         * @param amount 需要的令牌数
+         * @param now 当前时间点
+         * @return 需要等待的纳秒数，不需要等待时返回0
+         */
+        long nanosUntilAvailable(int amount, long now) {
+            refill(now);
+            double needed = Math.min(amount, capacity) - available;
+            return needed <= 0 ? 0 : (long) Math.ceil(needed / refillPerNano);
+        }
+
+        /**
+         * 扣除令牌，可用令牌最多扣到0
+         * @param amount 需要的令牌数
+         * @param now 当前时间点
+         */
+        void take(int amount, long now) {
+            refill(now);
+            available = Math.max(0, available - amount);
+        }
+
+        private void refill(long now) {
+            available = Math.min(capacity, available + (now - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
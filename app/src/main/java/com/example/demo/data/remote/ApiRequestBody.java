@@ -0,0 +1,139 @@
+package com.example.demo.data.remote;
+
+import com.example.demo.data.remote.model.ApiRequest;
+import com.example.demo.data.remote.model.ApiRequestMessage;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * 聊天请求体
+ * 直接拼接每条消息已缓存的JSON字节写入Okio的BufferedSink，不经过Gson反射
+ * 对话历史中的旧消息在之前的轮次中已经编码过，每轮只需要编码新增的消息
+ * 输出与Gson序列化ApiRequest的结果在JSON语义上等价：字段顺序相同，值为null的字段不输出；
+ * 但字节并不完全相同，Gson默认把<、>、&、=、'转义为Unicode转义序列，这里使用JsonWriter的默认设置，不做HTML转义，
+ * 与disableHtmlEscaping()的Gson输出逐字节相同
+ */
+public class ApiRequestBody extends RequestBody {
+
+    // 与GsonConverterFactory相同的内容类型
+    private static final MediaType MEDIA_TYPE = MediaType.get("application/json; charset=UTF-8");
+
+    // 消息之间的分隔符
+    private static final ByteString COMMA = ByteString.encodeUtf8(",");
+
+    // messages数组之前的部分，例如{"model":"...","messages":[
+    private final ByteString head;
+
+    // 每条消息的JSON字节
+    private final List<ByteString> messages;
+
+    // messages数组之后的部分，例如],"stream":true}
+    private final ByteString tail;
+
+    // 请求体总字节数
+    private final long contentLength;
+
+    /**
+     * 构造函数，创建时即确定所有字节，请求体可以被重试时重复写出
+     * @param request 聊天请求对象
+     */
+    public ApiRequestBody(ApiRequest request) {
+        this.head = encodeHead(request);
+        this.tail = encodeTail(request);
+        this.messages = new ArrayList<>();
+        long length = head.size() + tail.size();
+        List<ApiRequestMessage> requestMessages = request.getMessages();
+        if (requestMessages != null) {
+            for (ApiRequestMessage message : requestMessages) {
+                ByteString encoded = message.getEncodedJson();
+                messages.add(encoded);
+                length += encoded.size();
+            }
+            length += Math.max(0, messages.size() - 1) * COMMA.size();
+        }
+        this.contentLength = length;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        sink.write(head);
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) {
+                sink.write(COMMA);
+            }
+            sink.write(messages.get(i));
+        }
+        sink.write(tail);
+    }
+
+    /**
+     * 编码messages数组之前的字段
+     * @param request 聊天请求对象
+     * @return 编码后的字节
+     */
+    private static ByteString encodeHead(ApiRequest request) {
+        StringWriter json = new StringWriter();
+        json.write('{');
+        if (request.getModel() != null) {
+            json.write("\"model\":");
+            json.write(quote(request.getModel()));
+            json.write(',');
+        }
+        json.write("\"messages\":[");
+        return ByteString.encodeUtf8(json.toString());
+    }
+
+    /**
+     * 编码messages数组之后的字段
+     * @param request 聊天请求对象
+     * @return 编码后的字节
+     */
+    private static ByteString encodeTail(ApiRequest request) {
+        StringBuilder json = new StringBuilder("]");
+        if (request.getStreamValue() != null) {
+            json.append(",\"stream\":").append(request.getStreamValue());
+        }
+        if (request.getResponseFormat() != null && request.getResponseFormat().getType() != null) {
+            json.append(",\"response_format\":{\"type\":")
+                    .append(quote(request.getResponseFormat().getType()))
+                    .append('}');
+        }
+        json.append('}');
+        return ByteString.encodeUtf8(json.toString());
+    }
+
+    /**
+     * 把字符串编码为带引号和转义的JSON字符串
+     * @param value 字符串
+     * @return JSON字符串字面量
+     */
+    private static String quote(String value) {
+        StringWriter json = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(json)) {
+            writer.value(value);
+        } catch (IOException e) {
+            // 写入StringWriter不会抛出IOException
+            throw new IllegalStateException(e);
+        }
+        return json.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.data.remote;
+
+import com.example.demo.data.remote.model.ApiResponse;
+import com.example.demo.data.remote.model.ApiUsage;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * 聊天响应流式解析器
+ * 使用JsonReader逐个读取字段，只取出choices[0].message.content和usage，其余字段直接跳过
+ * 不创建choices列表和中间的选择项、消息对象
+ * 不依赖Android，可以直接在JVM上对录制的响应进行测试
+ */
+public class ApiResponseParser {
+
+    private ApiResponseParser() {
+    }
+
+    /**
+     * 解析聊天响应
+     * JsonReader遇到结构不符（如顶层是数组）或数字越界时抛出的是运行时异常，这里统一包装为IOException，
+     * 调用方按网络失败处理即可，不会在后台线程上崩溃
+     * @param reader JSON读取器，位于响应对象开头
+     * @return 只包含第一条消息内容和token用量的响应对象
+     * @throws IOException 读取失败或JSON格式错误时抛出
+     */
+    public static ApiResponse parse(JsonReader reader) throws IOException {
+        try {
+            return readResponse(reader);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("响应格式错误", e);
+        }
+    }
+
+    /**
+     * 读取响应对象
+     * @param reader JSON读取器，位于响应对象开头
+     * @return 只包含第一条消息内容和token用量的响应对象
+     * @throws IOException 读取失败时抛出
+     */
+    private static ApiResponse readResponse(JsonReader reader) throws IOException {
+        ApiResponse response = new ApiResponse();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("choices".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                response.setFirstMessageContent(readFirstChoiceContent(reader));
+            } else if ("usage".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                response.setUsage(readUsage(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return response;
+    }
+
+    /**
+     * 读取choices数组中第一个选择项的消息内容，跳过其余选择项
+     * @param reader JSON读取器，位于choices数组开头
+     * @return 消息内容，没有时返回null
+     * @throws IOException 读取失败时抛出
+     */
+    private static String readFirstChoiceContent(JsonReader reader) throws IOException {
+        String content = null;
+        reader.beginArray();
+        if (reader.hasNext()) {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("message".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        content = readMessageContent(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        while (reader.hasNext()) {
+            reader.skipValue();
+        }
+        reader.endArray();
+        return content;
+    }
+
+    /**
+     * 读取消息对象中的content字段
+     * @param reader JSON读取器，位于消息对象开头
+     * @return 消息内容，没有或为null时返回null
+     * @throws IOException 读取失败时抛出
+     */
+    private static String readMessageContent(JsonReader reader) throws IOException {
+        String content = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("content".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                content = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return content;
+    }
+
+    /**
+     * 读取usage对象
+     * @param reader JSON读取器，位于usage对象开头
+     * @return token用量
+     * @throws IOException 读取失败时抛出
+     */
+    private static ApiUsage readUsage(JsonReader reader) throws IOException {
+        ApiUsage usage = new ApiUsage();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() != JsonToken.NUMBER) {
+                reader.skipValue();
+            } else if ("prompt_tokens".equals(name)) {
+                usage.setPromptTokens(reader.nextInt());
+            } else if ("completion_tokens".equals(name)) {
+                usage.setCompletionTokens(reader.nextInt());
+            } else if ("total_tokens".equals(name)) {
+                usage.setTotalTokens(reader.nextInt());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return usage;
+    }
+}
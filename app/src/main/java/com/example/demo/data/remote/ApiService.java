@@ -3,10 +3,14 @@ package com.example.demo.data.remote;
 import com.example.demo.data.remote.model.ApiRequest;
 import com.example.demo.data.remote.model.ApiResponse;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.Header;
+import retrofit2.http.Headers;
 import retrofit2.http.POST;
+import retrofit2.http.Streaming;
+import retrofit2.http.Tag;
 
 /**
  * API服务接口
@@ -20,11 +24,31 @@ public interface ApiService {
      * 发送API请求并获取响应
      * @param apiKey API密钥，用于身份验证
      * @param apiRequest API请求对象，包含请求参数
+     * @param priority 请求优先级，限流排队时使用
      * @return Call对象，用于异步执行请求
      */
     @POST("v1/chat/completions")
     Call<ApiResponse> getApiResponse(
             @Header("Authorization") String apiKey,
-            @Body ApiRequest apiRequest
+            @Body ApiRequest apiRequest,
+            @Tag RequestPriority priority
+    );
+
+    /**
+     * 获取流式API响应接口
+     * 请求体需设置stream为true，服务器以SSE格式逐块返回增量内容
+     * 使用@Streaming避免Retrofit把整个响应体缓冲到内存
+     * @param apiKey API密钥，用于身份验证
+     * @param apiRequest API请求对象，stream字段应为true
+     * @param priority 请求优先级，限流排队时使用
+     * @return Call对象，响应体需由StreamingChatClient逐行解析
+     */
+    @Streaming
+    @Headers("Accept: text/event-stream")
+    @POST("v1/chat/completions")
+    Call<ResponseBody> getApiResponseStream(
+            @Header("Authorization") String apiKey,
+            @Body ApiRequest apiRequest,
+            @Tag RequestPriority priority
     );
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.example.demo.data.remote;
+
+import java.io.IOException;
+
+/**
+ * 熔断器
+ * 上游连续失败达到阈值后进入打开状态，在冷却时间内直接拒绝请求，不再占用连接和等待超时
+ * 冷却结束后进入半开状态，只放行一个试探请求：成功则恢复，失败则重新打开
+ */
+public class CircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        // 正常放行请求
+        CLOSED,
+        // 拒绝所有请求
+        OPEN,
+        // 只放行一个试探请求
+        HALF_OPEN
+    }
+
+    /**
+     * 熔断器打开时抛出的异常
+     * 继承IOException，调用方按网络错误统一处理
+     */
+    public static class CircuitOpenException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public CircuitOpenException(long retryInMillis) {
+            super("服务暂时不可用，请在" + Math.max(1, retryInMillis / 1000) + "秒后重试");
+        }
+    }
+
+    // 连续失败多少次后打开
+    private final int failureThreshold;
+
+    // 打开后的冷却时间（毫秒）
+    private final long openMillis;
+
+    // 当前状态
+    private State state = State.CLOSED;
+
+    // 连续失败次数
+    private int consecutiveFailures = 0;
+
+    // 进入打开状态的时间
+    private long openedAtMillis = 0;
+
+    // 半开状态下是否已有试探请求在进行
+    private boolean trialInFlight = false;
+
+    /**
+     * 构造函数
+     * @param failureThreshold 连续失败多少次后打开
+     * @param openMillis 打开后的冷却时间（毫秒）
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 请求前调用，熔断器打开时抛出异常
+     * @throws CircuitOpenException 熔断器打开或半开状态已有试探请求时抛出
+     */
+    public synchronized void acquire() throws CircuitOpenException {
+        long now = System.currentTimeMillis();
+        if (state == State.OPEN) {
+            long remaining = openedAtMillis + openMillis - now;
+            if (remaining > 0) {
+                throw new CircuitOpenException(remaining);
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                throw new CircuitOpenException(openMillis);
+            }
+            trialInFlight = true;
+        }
+    }
+
+    /**
+     * 请求成功时调用
+     */
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * 请求失败（上游过载或服务端错误）时调用
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                ApiMetrics.getInstance().increment("circuit_breaker.opened");
+            }
+            state = State.OPEN;
+            openedAtMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 请求既不算成功也不算失败（例如被取消）时调用，释放半开状态的试探名额
+     */
+    public synchronized void release() {
+        trialInFlight = false;
+    }
+
+    /**
+     * 获取当前状态
+     * @return 熔断器状态
+     */
+    public synchronized State getState() {
+        return state;
+    }
+}
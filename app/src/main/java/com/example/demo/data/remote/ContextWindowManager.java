@@ -0,0 +1,82 @@
+package com.example.demo.data.remote;
+
+import com.example.demo.data.remote.model.ApiRequestMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 上下文窗口管理类
+ * 把发送给API的消息历史控制在token预算以内
+ * 始终保留开头的system消息和最新一条消息，从最早的对话轮次开始裁剪
+ */
+public class ContextWindowManager {
+
+    // 默认的上下文token预算
+    public static final int DEFAULT_TOKEN_BUDGET = 4000;
+
+    // 上下文token预算
+    private final int tokenBudget;
+
+    /**
+     * 构造函数
+     * @param tokenBudget 上下文token预算
+     */
+    public ContextWindowManager(int tokenBudget) {
+        this.tokenBudget = tokenBudget;
+    }
+
+    /**
+     * 获取上下文token预算
+     * @return token预算
+     */
+    public int getTokenBudget() {
+        return tokenBudget;
+    }
+
+    /**
+     * 估算消息列表的总token数
+     * @param messages 消息列表
+     * @return 估算的总token数
+     */
+    public static int estimateTokens(List<ApiRequestMessage> messages) {
+        int total = 0;
+        for (ApiRequestMessage message : messages) {
+            total += message.getEstimatedTokens();
+        }
+        return total;
+    }
+
+    /**
+     * 原地裁剪消息历史，使其不超过token预算
+     * 开头连续的system消息（人设提示、对话摘要）不会被裁剪，最新一条消息始终保留
+     * 裁剪后第一条对话消息保证是user消息，避免出现没有提问的assistant回复
+     * @param history 消息历史，调用方需持有该列表的锁
+     * @return 被裁剪掉的消息，按原顺序排列
+     */
+    public List<ApiRequestMessage> trim(List<ApiRequestMessage> history) {
+        List<ApiRequestMessage> removed = new ArrayList<>();
+        int total = estimateTokens(history);
+        if (total <= tokenBudget) {
+            return removed;
+        }
+
+        // 跳过开头的system消息
+        int firstTurn = 0;
+        while (firstTurn < history.size() && "system".equals(history.get(firstTurn).getRole())) {
+            firstTurn++;
+        }
+
+        // 从最早的对话消息开始移除，最后一条消息始终保留
+        while (total > tokenBudget && history.size() - firstTurn > 1) {
+            ApiRequestMessage oldest = history.remove(firstTurn);
+            total -= oldest.getEstimatedTokens();
+            removed.add(oldest);
+        }
+        // 移除开头孤立的assistant回复
+        while (history.size() - firstTurn > 1 && !"user".equals(history.get(firstTurn).getRole())) {
+            removed.add(history.remove(firstTurn));
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.data.remote;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * 请求体gzip压缩拦截器
+ * 聊天请求的messages数组随对话增长，JSON文本压缩率很高
+ * 服务器不接受压缩请求体（返回415，或返回错误信息提到编码的400）时，用原始请求体重试一次并在本进程内关闭压缩
+ */
+public class GzipRequestInterceptor implements Interceptor {
+
+    // 判断400是否由压缩引起时预读的错误信息字节数
+    private static final long ERROR_PEEK_BYTES = 2048;
+
+    // 请求体小于该字节数时不压缩
+    private final long minCompressBytes;
+
+    // 压缩是否仍然可用，服务器拒绝后置为false
+    private final AtomicBoolean enabled;
+
+    /**
+     * 构造函数
+     * @param enabled 是否启用压缩
+     * @param minCompressBytes 请求体小于该字节数时不压缩
+     */
+    public GzipRequestInterceptor(boolean enabled, long minCompressBytes) {
+        this.enabled = new AtomicBoolean(enabled);
+        this.minCompressBytes = minCompressBytes;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request original = chain.request();
+        RequestBody body = original.body();
+        if (!enabled.get() || body == null || original.header("Content-Encoding") != null
+                || body.contentLength() < minCompressBytes) {
+            return chain.proceed(original);
+        }
+
+        Request compressed = original.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(original.method(), gzip(body))
+                .build();
+        Response response = chain.proceed(compressed);
+        if (isEncodingRejected(response)) {
+            // 服务器不支持压缩请求体，关闭压缩后用原始请求重试
+            enabled.set(false);
+            response.close();
+            return chain.proceed(original);
+        }
+        return response;
+    }
+
+    /**
+     * 判断服务器是否因为请求体压缩而拒绝请求
+     * 415一定是不支持的编码；400只有错误信息提到编码或gzip时才算，
+     * 其他400（如上下文超长）与压缩无关，不重试也不关闭压缩
+     * @param response 压缩请求的响应
+     * @return 服务器拒绝压缩请求体时返回true
+     * @throws IOException 读取错误信息失败时抛出
+     */
+    static boolean isEncodingRejected(Response response) throws IOException {
+        if (response.code() == 415) {
+            return true;
+        }
+        if (response.code() != 400) {
+            return false;
+        }
+        // 只预读错误信息的开头，不消耗响应体，不拒绝时调用方仍可读取完整内容
+        String error = response.peekBody(ERROR_PEEK_BYTES).string().toLowerCase(Locale.ROOT);
+        return error.contains("gzip") || error.contains("content-encoding") || error.contains("content encoding");
+    }
+
+    /**
+     * 压缩请求体，压缩结果先写入缓冲区以便提供准确的Content-Length
+     * @param body 原始请求体
+     * @return 压缩后的请求体
+     * @throws IOException 写入失败时抛出
+     */
+    private static RequestBody gzip(RequestBody body) throws IOException {
+        Buffer buffer = new Buffer();
+        try (BufferedSink gzipSink = Okio.buffer(new GzipSink(buffer))) {
+            body.writeTo(gzipSink);
+        }
+        MediaType contentType = body.contentType();
+        return RequestBody.create(buffer.readByteString(), contentType);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.data.remote;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * 模型回复JSON提取工具类
+ * 即使请求了JSON响应格式，模型偶尔仍会用Markdown代码块包裹JSON或在前后加上说明文字
+ * 先尝试直接解析，失败时提取第一个完整的JSON对象再解析，避免因格式问题重新请求
+ * 解析结果记录在ApiMetrics中：直接成功、提取后成功和失败分别计数
+ */
+public class JsonExtractor {
+
+    private JsonExtractor() {
+    }
+
+    /**
+     * 从模型回复中解析JSON对象，并检查必需的字段
+     * @param text 模型回复
+     * @param requiredKeys 必需的字段名
+     * @return JSON对象
+     * @throws JSONException 找不到JSON对象或缺少必需字段时抛出
+     */
+    public static JSONObject parseObject(String text, String... requiredKeys) throws JSONException {
+        ApiMetrics metrics = ApiMetrics.getInstance();
+        try {
+            JSONObject object;
+            try {
+                object = new JSONObject(text.trim());
+                metrics.increment("structured_output.parsed");
+            } catch (JSONException e) {
+                String extracted = extractObjectText(text);
+                if (extracted == null) {
+                    throw e;
+                }
+                object = new JSONObject(extracted);
+                metrics.increment("structured_output.recovered");
+            }
+            for (String key : requiredKeys) {
+                if (!object.has(key) || object.isNull(key)) {
+                    throw new JSONException("缺少字段: " + key);
+                }
+            }
+            return object;
+        } catch (JSONException e) {
+            metrics.increment("structured_output.failed");
+            throw e;
+        }
+    }
+
+    /**
+     * 在文本中查找第一个括号配对完整的JSON对象
+     * 会跳过字符串中的括号和转义字符，因此代码块标记、前后说明文字都不影响结果
+     * @param text 模型回复
+     * @return JSON对象文本，找不到时返回null
+     */
+    static String extractObjectText(String text) {
+        int start = text.indexOf('{');
+        while (start >= 0) {
+            int end = findObjectEnd(text, start);
+            if (end > 0) {
+                return text.substring(start, end + 1);
+            }
+            start = text.indexOf('{', start + 1);
+        }
+        return null;
+    }
+
+    /**
+     * 查找从start开始的JSON对象的结束位置
+     * @param text 文本
+     * @param start 左花括号的位置
+     * @return 配对的右花括号位置，括号不配对时返回-1
+     */
+    private static int findObjectEnd(String text, int start) {
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+                if (depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
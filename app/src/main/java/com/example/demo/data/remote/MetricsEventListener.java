@@ -0,0 +1,171 @@
+package com.example.demo.data.remote;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 调用指标监听器
+ * 通过OkHttp的EventListener记录每次调用各阶段的时间点，调用结束时汇总为一条记录交给ApiMetrics
+ * 首字节时间只统计最后一次尝试从发送完请求到收到响应头的耗时，不含限流排队和重试退避，
+ * 这些等待包含在调用总耗时中，限流排队另由ApiRateLimiter单独记录
+ * 每个调用使用独立的实例，只在发起调用的线程和OkHttp的连接线程上顺序回调，不需要加锁
+ */
+public class MetricsEventListener extends EventListener {
+
+    /**
+     * 监听器工厂，为每个调用创建新的监听器
+     */
+    public static final Factory FACTORY = call -> new MetricsEventListener(ApiMetrics.getInstance());
+
+    // 指标汇总对象
+    private final ApiMetrics metrics;
+
+    // 各阶段开始和结束的时间点（纳秒），未发生时为-1
+    private long callStartNanos = -1;
+    private long dnsStartNanos = -1;
+    private long dnsEndNanos = -1;
+    private long connectStartNanos = -1;
+    private long connectEndNanos = -1;
+    private long secureConnectStartNanos = -1;
+    private long secureConnectEndNanos = -1;
+    // 最后一次尝试发送完请求的时间点，重试时覆盖
+    private long requestSentNanos = -1;
+    // 最后一次尝试开始接收响应头的时间点，重试时重置
+    private long responseHeadersStartNanos = -1;
+
+    // 状态码，未收到响应时为-1
+    private int statusCode = -1;
+
+    // 请求体和响应体的字节数
+    private long requestBytes = 0;
+    private long responseBytes = 0;
+
+    /**
+     * 构造函数
+     * @param metrics 指标汇总对象
+     */
+    MetricsEventListener(ApiMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        dnsEndNanos = System.nanoTime();
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        secureConnectEndNanos = System.nanoTime();
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        connectEndNanos = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        // 新的一次尝试开始，首字节时间只统计最后一次尝试
+        responseHeadersStartNanos = -1;
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        requestSentNanos = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestSentNanos = System.nanoTime();
+        requestBytes += byteCount;
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        responseHeadersStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        statusCode = response.code();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        responseBytes += byteCount;
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        record(call, null);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        record(call, ioe.getClass().getSimpleName());
+    }
+
+    /**
+     * 汇总本次调用的记录
+     * @param call 调用对象
+     * @param error 失败原因，成功时为null
+     */
+    private void record(Call call, String error) {
+        long endNanos = System.nanoTime();
+        String endpoint = call.request().method() + " " + call.request().url().encodedPath();
+        metrics.recordCall(new ApiMetrics.CallRecord(
+                endpoint,
+                statusCode,
+                error,
+                elapsedMillis(dnsStartNanos, dnsEndNanos),
+                elapsedMillis(connectStartNanos, connectEndNanos),
+                elapsedMillis(secureConnectStartNanos, secureConnectEndNanos),
+                elapsedMillis(requestSentNanos, responseHeadersStartNanos),
+                elapsedMillis(callStartNanos, endNanos),
+                requestBytes,
+                responseBytes));
+    }
+
+    /**
+     * 计算两个时间点之间的毫秒数
+     * @param startNanos 开始时间点
+     * @param endNanos 结束时间点
+     * @return 毫秒数，任一时间点缺失时为-1
+     */
+    private static long elapsedMillis(long startNanos, long endNanos) {
+        if (startNanos < 0 || endNanos < 0) {
+            return -1;
+        }
+        return (endNanos - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.data.remote;
+
+import com.example.demo.data.remote.model.ApiRequest;
+import com.example.demo.data.remote.model.ApiRequestMessage;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+
+/**
+ * 限流拦截器
+ * 每次发出请求（包括重试）之前从ApiRateLimiter获取令牌
+ * 优先级取自请求上的RequestPriority标签，没有标签时按BACKGROUND处理；
+ * token数根据Retrofit调用参数中的ApiRequest估算
+ */
+public class RateLimitInterceptor implements Interceptor {
+
+    // 共用的限流器
+    private final ApiRateLimiter rateLimiter;
+
+    /**
+     * 构造函数
+     * @param rateLimiter 限流器
+     */
+    public RateLimitInterceptor(ApiRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation == null) {
+            // 不是Retrofit接口调用（例如连接预热），不占用限额
+            return chain.proceed(request);
+        }
+        RequestPriority priority = request.tag(RequestPriority.class);
+        if (priority == null) {
+            priority = RequestPriority.BACKGROUND;
+        }
+        rateLimiter.acquire(priority, estimateTokens(invocation), chain.call());
+        return chain.proceed(request);
+    }
+
+    /**
+     * 估算请求消耗的token数
+     * @param invocation Retrofit调用信息
+     * @return 估算的token数，不是聊天请求时返回0
+     */
+    private static int estimateTokens(Invocation invocation) {
+        int tokens = 0;
+        for (Object argument : invocation.arguments()) {
+            if (argument instanceof ApiRequest && ((ApiRequest) argument).getMessages() != null) {
+                for (ApiRequestMessage message : ((ApiRequest) argument).getMessages()) {
+                    tokens += message.getEstimatedTokens();
+                }
+            }
+        }
+        return tokens;
+    }
+}
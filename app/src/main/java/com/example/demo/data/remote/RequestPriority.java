@@ -0,0 +1,12 @@
+package com.example.demo.data.remote;
+
+/**
+ * 请求优先级
+ * 通过Retrofit的@Tag参数附加到请求上，由ApiRateLimiter决定排队顺序
+ */
+public enum RequestPriority {
+    // 用户正在等待的请求，例如聊天回复
+    INTERACTIVE,
+    // 后台请求，例如生成人设、生成动态和对话摘要
+    BACKGROUND
+}
@@ -0,0 +1,178 @@
+package com.example.demo.data.remote;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 重试拦截器
+ * 对429（限流）和5xx（上游暂时不可用）响应按指数退避加随机抖动重试，
+ * 服务器返回Retry-After时按其指定的时间等待，等待期间调用被取消时立即结束
+ * 所有请求共用一个熔断器，每次逻辑调用只记录一次结果，上游持续返回5xx时直接失败，不再排队重试
+ * 可以把ApiClientProfile的baseUrl指向按顺序返回429/503的本地服务器来验证退避行为
+ */
+public class RetryInterceptor implements Interceptor {
+
+    // 第一次重试的基础等待时间（毫秒）
+    private static final long BASE_DELAY_MILLIS = 500;
+
+    // 单次等待的上限（毫秒）
+    private static final long MAX_DELAY_MILLIS = 8000;
+
+    // 服务器要求等待的时间超过该值时不再重试，直接返回响应（毫秒）
+    private static final long MAX_RETRY_AFTER_MILLIS = 20000;
+
+    // 退避等待期间检查调用是否已取消的间隔（毫秒）
+    private static final long CANCEL_CHECK_INTERVAL_MILLIS = 100;
+
+    // 最大重试次数
+    private final int maxRetries;
+
+    // 熔断器
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * 构造函数
+     * @param maxRetries 最大重试次数
+     * @param circuitBreaker 熔断器
+     */
+    public RetryInterceptor(int maxRetries, CircuitBreaker circuitBreaker) {
+        this.maxRetries = maxRetries;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        // 熔断器按一次逻辑调用计数：开始时检查一次，结束时只记录一次结果，重试不重复计数
+        circuitBreaker.acquire();
+        int attempt = 0;
+        while (true) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                // 网络错误由OkHttp自身的连接重试处理，这里只记录熔断状态
+                if (chain.call().isCanceled()) {
+                    circuitBreaker.release();
+                } else {
+                    circuitBreaker.recordFailure();
+                }
+                throw e;
+            }
+
+            int code = response.code();
+            if (!isRetryable(code)) {
+                // 4xx等客户端错误说明上游本身正常
+                circuitBreaker.recordSuccess();
+                return response;
+            }
+
+            long delayMillis = retryDelayMillis(response, attempt);
+            if (attempt >= maxRetries || delayMillis > MAX_RETRY_AFTER_MILLIS
+                    || circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                recordFinalFailure(code);
+                return response;
+            }
+            response.close();
+            attempt++;
+            ApiMetrics.getInstance().increment("retry.attempts");
+
+            try {
+                sleep(chain, delayMillis);
+            } catch (IOException e) {
+                circuitBreaker.release();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 重试用尽后记录最终结果
+     * 429只说明请求太快，上游本身正常，不计入熔断失败；5xx才说明上游异常
+     * @param code 最后一次响应的状态码
+     */
+    private void recordFinalFailure(int code) {
+        if (code == 429) {
+            circuitBreaker.release();
+        } else {
+            circuitBreaker.recordFailure();
+        }
+    }
+
+    /**
+     * 判断状态码是否值得重试
+     * 501（未实现）和505（不支持的HTTP版本）重试也不会成功，不重试
+     * @param code HTTP状态码
+     * @return 429或其他5xx时返回true
+     */
+    static boolean isRetryable(int code) {
+        return code == 429 || (code >= 500 && code <= 599 && code != 501 && code != 505);
+    }
+
+    /**
+     * 计算下一次重试前的等待时间
+     * 优先使用Retry-After，否则使用带完全随机抖动的指数退避，避免多个客户端同时重试
+     * @param response 本次响应
+     * @param attempt 已重试的次数
+     * @return 等待时间（毫秒）
+     */
+    static long retryDelayMillis(Response response, int attempt) {
+        long retryAfter = parseRetryAfterMillis(response);
+        if (retryAfter >= 0) {
+            return retryAfter;
+        }
+        long exponential = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << Math.min(attempt, 16));
+        return ThreadLocalRandom.current().nextLong(exponential + 1);
+    }
+
+    /**
+     * 解析Retry-After响应头，支持秒数和HTTP日期两种格式
+     * @param response 响应
+     * @return 等待时间（毫秒），没有或无法解析时返回-1
+     */
+    static long parseRetryAfterMillis(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate("Retry-After");
+            if (date == null) {
+                return -1;
+            }
+            return Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 等待指定时间，分段等待以便及时响应Call.cancel()
+     * @param chain 拦截器链，用于检查调用是否已取消
+     * @param millis 等待时间（毫秒）
+     * @throws IOException 调用已取消或线程被中断时抛出
+     */
+    private static void sleep(Chain chain, long millis) throws IOException {
+        long deadline = System.currentTimeMillis() + millis;
+        try {
+            while (true) {
+                if (chain.call().isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                Thread.sleep(Math.min(remaining, CANCEL_CHECK_INTERVAL_MILLIS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Canceled", e);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.demo.data.remote;
+
+import com.example.demo.data.remote.model.ApiRequest;
+import com.example.demo.data.remote.model.ApiStreamChunk;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * 流式聊天客户端
+ * 以stream模式调用聊天API，并逐行解析SSE（server-sent events）响应
+ * 每解析出一个增量就立即回调，首个增量到达即可显示，无需等待完整回复
+ */
+public class StreamingChatClient {
+
+    // SSE数据行前缀
+    private static final String DATA_PREFIX = "data:";
+    // SSE注释行前缀，服务端常用来保持连接
+    private static final String COMMENT_PREFIX = ":";
+    // 流结束标记
+    private static final String DONE_MARKER = "[DONE]";
+
+    // 读取流的后台线程池，流式响应体的读取是阻塞IO，不能放在主线程
+    private static final ExecutorService STREAM_EXECUTOR = Executors.newCachedThreadPool();
+
+    // Gson实例，用于解析每个数据块
+    private static final Gson GSON = new Gson();
+
+    /**
+     * 流式回调接口
+     * 所有回调都在后台线程执行，更新UI时需使用postValue
+     */
+    public interface StreamCallback {
+        /**
+         * 收到增量内容
+         * @param delta 本次新增的文本
+         */
+        void onDelta(String delta);
+
+        /**
+         * 流正常结束
+         * @param fullContent 所有增量拼接后的完整内容
+         */
+        void onComplete(String fullContent);
+
+        /**
+         * 请求或读取失败
+         * @param error 错误信息
+         */
+        void onError(String error);
+
+        /**
+         * 请求被取消，之后不会再有其他回调
+         */
+        void onCancelled();
+    }
+
+    /**
+     * 增量监听接口，供SSE解析方法使用
+     */
+    public interface DeltaListener {
+        /**
+         * 解析出一个增量
+         * @param delta 本次新增的文本
+         */
+        void onDelta(String delta);
+    }
+
+    /**
+     * 以流式模式发送请求
+     * 请求在后台线程同步执行，响应体边到达边解析
+     * @param apiService API服务接口
+     * @param apiKey API密钥
+     * @param request API请求对象，会被设置为stream模式
+     * @param callback 流式回调
+     * @return Call对象，可用于取消请求
+     */
+    public static Call<ResponseBody> stream(ApiService apiService, String apiKey, ApiRequest request, StreamCallback callback) {
+        request.setStream(true);
+        Call<ResponseBody> call = apiService.getApiResponseStream(apiKey, request, RequestPriority.INTERACTIVE);
+        // 流式回复可能持续较长时间，使用单独的总超时时间代替客户端默认值
+        call.timeout().timeout(ApiClient.getProfile().getStreamCallTimeoutSeconds(), TimeUnit.SECONDS);
+        STREAM_EXECUTOR.execute(() -> execute(call, callback));
+        return call;
+    }
+
+    /**
+     * 执行请求并读取流式响应体
+     * @param call 流式请求Call对象
+     * @param callback 流式回调
+     */
+    private static void execute(Call<ResponseBody> call, StreamCallback callback) {
+        try {
+            Response<ResponseBody> response = call.execute();
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                callback.onError("API 错误: " + response.code() + " " + response.message());
+                return;
+            }
+            try {
+                String fullContent = readEvents(body.source(), callback::onDelta);
+                callback.onComplete(fullContent);
+            } finally {
+                body.close();
+            }
+        } catch (IOException e) {
+            // 主动取消的请求读取时也会抛出IOException，不作为错误处理
+            if (call.isCanceled()) {
+                callback.onCancelled();
+            } else {
+                callback.onError("网络请求失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 逐行解析SSE事件流
+     * 按SSE规范以空行划分事件，同一事件中的多个data行以换行拼接后再解析
+     * 忽略注释行（以冒号开头）以及event/id等字段
+     * 不依赖Android，可直接对MockWebServer返回的分块响应进行测试
+     * @param source 响应体数据源
+     * @param listener 增量监听器
+     * @return 所有增量拼接后的完整内容
+     * @throws IOException 读取失败、数据块无法解析或流在结束标记之前中断时抛出
+     */
+    public static String readEvents(BufferedSource source, DeltaListener listener) throws IOException {
+        StringBuilder content = new StringBuilder();
+        // 当前事件已读取的数据，为null表示当前事件还没有data行
+        StringBuilder data = null;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                // 空行表示一个事件结束
+                if (data != null) {
+                    if (dispatchEvent(data.toString(), content, listener)) {
+                        return content.toString();
+                    }
+                    data = null;
+                }
+                continue;
+            }
+            if (line.startsWith(COMMENT_PREFIX) || !line.startsWith(DATA_PREFIX)) {
+                continue;
+            }
+            String value = line.substring(DATA_PREFIX.length());
+            // 按规范去掉冒号后的一个空格
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            // 部分服务端发送结束标记后不再发送空行，直接结束
+            if (data == null && DONE_MARKER.equals(value.trim())) {
+                return content.toString();
+            }
+            if (data == null) {
+                data = new StringBuilder(value);
+            } else {
+                data.append('\n').append(value);
+            }
+        }
+        // 没有收到结束标记，未结束的事件按规范丢弃，已回调的增量保留在界面上
+        throw new IOException("流式响应在结束标记之前中断");
+    }
+
+    /**
+     * 处理一个完整的事件
+     * @param data 事件数据
+     * @param content 已拼接的完整内容
+     * @param listener 增量监听器
+     * @return 收到结束标记时返回true
+     * @throws IOException 数据块无法解析时抛出
+     */
+    private static boolean dispatchEvent(String data, StringBuilder content, DeltaListener listener) throws IOException {
+        String trimmed = data.trim();
+        if (DONE_MARKER.equals(trimmed)) {
+            return true;
+        }
+        if (trimmed.isEmpty()) {
+            return false;
+        }
+
+        ApiStreamChunk chunk;
+        try {
+            chunk = GSON.fromJson(data, ApiStreamChunk.class);
+        } catch (JsonSyntaxException e) {
+            throw new IOException("流式数据块格式错误: " + data, e);
+        }
+
+        String delta = chunk != null ? chunk.getFirstDeltaContent() : null;
+        if (delta != null && !delta.isEmpty()) {
+            content.append(delta);
+            listener.onDelta(delta);
+        }
+        return false;
+    }
+}
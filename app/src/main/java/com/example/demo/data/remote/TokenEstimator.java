@@ -0,0 +1,63 @@
+package com.example.demo.data.remote;
+
+/**
+ * Token数量估算工具类
+ * 在本地近似估算文本的token数，不依赖服务端分词器
+ * 中日韩字符按每字一个token计算，ASCII单词按约4个字符一个token计算，标点各算一个token
+ */
+public final class TokenEstimator {
+
+    // 每条消息的固定开销（角色标记、分隔符等）
+    public static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    // ASCII单词平均每个token包含的字符数
+    private static final int ASCII_CHARS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 估算一段文本的token数
+     * @param text 要估算的文本，可以是中英文混合
+     * @return 估算的token数
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+
+        int tokens = 0;
+        // 当前连续ASCII字母数字的长度
+        int asciiRun = 0;
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (codePoint < 0x80 && Character.isLetterOrDigit(codePoint)) {
+                asciiRun++;
+                continue;
+            }
+
+            // 结束一个ASCII单词
+            tokens += ceilDiv(asciiRun, ASCII_CHARS_PER_TOKEN);
+            asciiRun = 0;
+
+            if (Character.isWhitespace(codePoint)) {
+                // 空白通常并入相邻token
+                continue;
+            }
+            // 中日韩字符、其他非ASCII字符（如emoji）和标点各按一个token计算
+            tokens++;
+        }
+        tokens += ceilDiv(asciiRun, ASCII_CHARS_PER_TOKEN);
+        return tokens;
+    }
+
+    /**
+     * 向上取整除法
+     */
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
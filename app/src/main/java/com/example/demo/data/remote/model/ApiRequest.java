@@ -18,6 +18,14 @@ public class ApiRequest {
     @SerializedName("messages")
     private List<ApiRequestMessage> messages;
 
+    // 是否以SSE流式返回，为null时不序列化该字段
+    @SerializedName("stream")
+    private Boolean stream;
+
+    // 响应格式，为null时不序列化该字段，由模型自由返回文本
+    @SerializedName("response_format")
+    private ApiResponseFormat responseFormat;
+
     /**
      * 构造函数
      * @param model AI模型名称
@@ -28,9 +36,26 @@ public class ApiRequest {
         this.messages = messages;
     }
 
+    /**
+     * 构造函数
+     * @param model AI模型名称
+     * @param messages 聊天消息列表
+     * @param stream 是否以SSE流式返回
+     */
+    public ApiRequest(String model, List<ApiRequestMessage> messages, boolean stream) {
+        this.model = model;
+        this.messages = messages;
+        this.stream = stream;
+    }
+
     // Getter和Setter方法
     public String getModel() { return model; }
     public void setModel(String model) { this.model = model; }
     public List<ApiRequestMessage> getMessages() { return messages; }
     public void setMessages(List<ApiRequestMessage> messages) { this.messages = messages; }
+    public boolean isStream() { return stream != null && stream; }
+    public void setStream(boolean stream) { this.stream = stream; }
+    public Boolean getStreamValue() { return stream; }
+    public ApiResponseFormat getResponseFormat() { return responseFormat; }
+    public void setResponseFormat(ApiResponseFormat responseFormat) { this.responseFormat = responseFormat; }
 }
\ No newline at end of file
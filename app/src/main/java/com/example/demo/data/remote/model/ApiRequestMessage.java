@@ -1,6 +1,13 @@
 package com.example.demo.data.remote.model;
 
+import com.example.demo.data.remote.TokenEstimator;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import okio.ByteString;
 
 /**
  * 聊天API消息数据模型类
@@ -17,6 +24,15 @@ public class ApiRequestMessage {
     @SerializedName("content")
     private String content;
 
+    // 估算的token数缓存，transient字段不参与序列化，-1表示尚未计算
+    private transient int estimatedTokens = -1;
+
+    // 序列化后的JSON字节缓存，transient字段不参与序列化，null表示尚未编码
+    private transient ByteString encodedJson;
+
+    // 对应的聊天记录消息ID，transient字段不参与序列化，用于记录摘要覆盖到哪条记录，可以为null
+    private transient String messageId;
+
     /**
      * 构造函数
      * @param role 消息角色
@@ -27,9 +43,58 @@ public class ApiRequestMessage {
         this.content = content;
     }
 
+    /**
+     * 构造函数
+     * @param role 消息角色
+     * @param content 消息内容
+     * @param messageId 对应的聊天记录消息ID
+     */
+    public ApiRequestMessage(String role, String content, String messageId) {
+        this.role = role;
+        this.content = content;
+        this.messageId = messageId;
+    }
+
     // Getter和Setter方法
     public String getRole() { return role; }
-    public void setRole(String role) { this.role = role; }
+    public void setRole(String role) { this.role = role; this.encodedJson = null; }
     public String getContent() { return content; }
-    public void setContent(String content) { this.content = content; }
-}
\ No newline at end of file
+    public void setContent(String content) { this.content = content; this.estimatedTokens = -1; this.encodedJson = null; }
+    public String getMessageId() { return messageId; }
+
+    /**
+     * 获取这条消息的估算token数（包含每条消息的固定开销）
+     * 结果会被缓存，内容不变时不会重复计算
+     * @return 估算的token数
+     */
+    public int getEstimatedTokens() {
+        if (estimatedTokens < 0) {
+            estimatedTokens = TokenEstimator.MESSAGE_OVERHEAD_TOKENS + TokenEstimator.estimate(content);
+        }
+        return estimatedTokens;
+    }
+
+    /**
+     * 获取这条消息序列化后的JSON字节，格式为{"role":"...","content":"..."}
+     * 与Gson一样不输出值为null的字段，不做HTML转义
+     * 结果会被缓存，同一条消息在后续每轮请求中不会重复转义和编码
+     * @return UTF-8编码的JSON字节
+     */
+    public ByteString getEncodedJson() {
+        if (encodedJson == null) {
+            StringWriter json = new StringWriter();
+            try (JsonWriter writer = new JsonWriter(json)) {
+                writer.setSerializeNulls(false);
+                writer.beginObject();
+                writer.name("role").value(role);
+                writer.name("content").value(content);
+                writer.endObject();
+            } catch (IOException e) {
+                // 写入StringWriter不会抛出IOException
+                throw new IllegalStateException(e);
+            }
+            encodedJson = ByteString.encodeUtf8(json.toString());
+        }
+        return encodedJson;
+    }
+}
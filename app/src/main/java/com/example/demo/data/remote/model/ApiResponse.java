@@ -13,16 +13,31 @@ public class ApiResponse {
     @SerializedName("choices")
     private List<ApiResponseMessageChoice> apiResponseMessageChoices;
 
+    // token用量
+    @SerializedName("usage")
+    private ApiUsage usage;
+
+    // 第一个选择项的消息内容，由ApiResponseParser直接解析得到，此时choices为null
+    private transient String firstMessageContent;
+
     // Getter和Setter方法
     public List<ApiResponseMessageChoice> getChoices() { return apiResponseMessageChoices; }
     public void setChoices(List<ApiResponseMessageChoice> apiResponseMessageChoices) { this.apiResponseMessageChoices = apiResponseMessageChoices; }
 
+    public ApiUsage getUsage() { return usage; }
+    public void setUsage(ApiUsage usage) { this.usage = usage; }
+
+    public void setFirstMessageContent(String firstMessageContent) { this.firstMessageContent = firstMessageContent; }
+
     /**
      * 获取第一个消息的内容
      * 便捷方法，用于快速获取AI的回复内容
      * @return 第一个选择项中的消息内容，如果没有则返回null
      */
     public String getFirstMessageContent() {
+        if (firstMessageContent != null) {
+            return firstMessageContent;
+        }
         if (apiResponseMessageChoices != null && !apiResponseMessageChoices.isEmpty()) {
             ApiResponseMessageChoice firstApiResponseMessageChoice = apiResponseMessageChoices.get(0);
             if (firstApiResponseMessageChoice != null && firstApiResponseMessageChoice.getMessage() != null) {
@@ -0,0 +1,28 @@
+package com.example.demo.data.remote.model;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * 响应格式数据模型类
+ * 表示聊天请求中的response_format字段，type为json_object时模型只返回合法的JSON对象
+ */
+public class ApiResponseFormat {
+    // JSON对象模式
+    public static final String TYPE_JSON_OBJECT = "json_object";
+
+    // 响应格式类型
+    @SerializedName("type")
+    private String type;
+
+    /**
+     * 构造函数
+     * @param type 响应格式类型
+     */
+    public ApiResponseFormat(String type) {
+        this.type = type;
+    }
+
+    // Getter和Setter方法
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+}
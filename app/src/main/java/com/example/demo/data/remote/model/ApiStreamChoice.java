@@ -0,0 +1,24 @@
+package com.example.demo.data.remote.model;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * 流式响应选择数据模型类
+ * 表示流式数据块中的一个选择项
+ * delta字段只包含相对上一个数据块新增的内容
+ */
+public class ApiStreamChoice {
+    // 增量消息，结构与完整响应中的消息相同
+    @SerializedName("delta")
+    private ApiResponseMessage delta;
+
+    // 结束原因，流未结束时为null
+    @SerializedName("finish_reason")
+    private String finishReason;
+
+    // Getter和Setter方法
+    public ApiResponseMessage getDelta() { return delta; }
+    public void setDelta(ApiResponseMessage delta) { this.delta = delta; }
+    public String getFinishReason() { return finishReason; }
+    public void setFinishReason(String finishReason) { this.finishReason = finishReason; }
+}
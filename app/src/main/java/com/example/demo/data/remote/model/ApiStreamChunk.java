@@ -0,0 +1,33 @@
+package com.example.demo.data.remote.model;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.List;
+
+/**
+ * 流式响应数据块模型类
+ * 表示SSE流中一条data事件携带的JSON数据块
+ * 每个数据块只包含本次新增的增量内容
+ */
+public class ApiStreamChunk {
+    // 本数据块中的选择列表
+    @SerializedName("choices")
+    private List<ApiStreamChoice> choices;
+
+    // Getter和Setter方法
+    public List<ApiStreamChoice> getChoices() { return choices; }
+    public void setChoices(List<ApiStreamChoice> choices) { this.choices = choices; }
+
+    /**
+     * 获取第一个选择项的增量内容
+     * @return 第一个选择项中的增量文本，如果没有则返回null
+     */
+    public String getFirstDeltaContent() {
+        if (choices != null && !choices.isEmpty()) {
+            ApiStreamChoice firstChoice = choices.get(0);
+            if (firstChoice != null && firstChoice.getDelta() != null) {
+                return firstChoice.getDelta().getContent();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.data.remote.model;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * token用量数据模型类
+ * 表示聊天API响应中的usage字段
+ */
+public class ApiUsage {
+    // 请求消耗的token数
+    @SerializedName("prompt_tokens")
+    private int promptTokens;
+
+    // 回复消耗的token数
+    @SerializedName("completion_tokens")
+    private int completionTokens;
+
+    // 总token数
+    @SerializedName("total_tokens")
+    private int totalTokens;
+
+    // Getter和Setter方法
+    public int getPromptTokens() { return promptTokens; }
+    public void setPromptTokens(int promptTokens) { this.promptTokens = promptTokens; }
+
+    public int getCompletionTokens() { return completionTokens; }
+    public void setCompletionTokens(int completionTokens) { this.completionTokens = completionTokens; }
+
+    public int getTotalTokens() { return totalTokens; }
+    public void setTotalTokens(int totalTokens) { this.totalTokens = totalTokens; }
+}
@@ -0,0 +1,140 @@
+package com.example.demo.data.repository;
+
+import com.example.demo.data.local.LocalDataSource;
+import com.example.demo.data.model.ConversationSummary;
+import com.example.demo.data.remote.ContextWindowManager;
+import com.example.demo.data.remote.model.ApiRequestMessage;
+import com.example.demo.model.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 聊天历史恢复工具类
+ * 冷启动时通过一次按时间倒序的游标读取，同时恢复UI聊天记录缓存和API上下文
+ * UI只恢复最新一页，API上下文只恢复token预算内的最近几轮，两者都满足后立即停止读取
+ * 有保存的对话摘要时先恢复摘要，API上下文只恢复摘要覆盖范围之后的记录
+ */
+class ChatHistoryHydrator {
+
+    // 错误提示消息的前缀，这类消息只用于展示，不发送给模型
+    static final String ERROR_MESSAGE_PREFIX = "[系统错误";
+
+    private ChatHistoryHydrator() {
+    }
+
+    /**
+     * 从数据库恢复聊天记录，需在后台线程调用
+     * 恢复的记录插入到列表中已有内容之前，恢复期间新发送的消息不会丢失，也不会被重复插入
+     * @param localDataSource 本地数据源
+     * @param personaType Persona类型（"user"或"other"）
+     * @param personaId Persona ID
+     * @param uiHistory 该Persona的UI历史缓存
+     * @param apiHistory 该Persona的API消息历史，为null时不恢复API上下文
+     * @param tokenBudget API上下文的token预算
+     * @param pager 该Persona的分页器，记录UI已加载到的位置
+     */
+    static void hydrate(LocalDataSource localDataSource, String personaType, long personaId,
+                        List<ChatMessage> uiHistory, List<ApiRequestMessage> apiHistory, int tokenBudget,
+                        ChatHistoryPager pager) {
+        List<ChatMessage> restoredUi = new ArrayList<>();
+        List<ApiRequestMessage> restoredApi = new ArrayList<>();
+
+        // 恢复保存的对话摘要，摘要覆盖的记录不再逐条恢复
+        ApiRequestMessage summaryMessage = null;
+        String summarizedUntil = null;
+        if (apiHistory != null) {
+            ConversationSummary summary = localDataSource.getConversationSummarySync(personaType, personaId);
+            if (summary != null) {
+                summaryMessage = ConversationSummarizer.toSystemMessage(summary.getSummary());
+                summarizedUntil = summary.getLastMessageId();
+            }
+        }
+
+        // 已占用的token数，从现有的system提示和摘要开始计算
+        int[] usedTokens = {summaryMessage != null ? summaryMessage.getEstimatedTokens() : 0};
+        if (apiHistory != null) {
+            synchronized (apiHistory) {
+                usedTokens[0] += ContextWindowManager.estimateTokens(apiHistory);
+            }
+        }
+        boolean[] apiFull = {apiHistory == null};
+        final String coveredMessageId = summarizedUntil;
+
+        // 是否读到了第一页之外的记录
+        boolean[] hasMore = {false};
+
+        localDataSource.forEachChatHistoryNewestFirst(personaType, personaId, chatHistory -> {
+            if (restoredUi.size() < ChatHistoryPager.PAGE_SIZE) {
+                restoredUi.add(ChatMessage.fromChatHistory(chatHistory));
+                pager.onRowLoaded(chatHistory);
+            } else {
+                hasMore[0] = true;
+            }
+
+            if (!apiFull[0] && chatHistory.getMessageId().equals(coveredMessageId)) {
+                // 这条及更早的记录已包含在摘要中
+                apiFull[0] = true;
+            }
+            String text = chatHistory.getText();
+            if (!apiFull[0] && !text.startsWith(ERROR_MESSAGE_PREFIX)) {
+                ApiRequestMessage message = new ApiRequestMessage(chatHistory.isSentByUser() ? "user" : "assistant",
+                        text, chatHistory.getMessageId());
+                if (usedTokens[0] + message.getEstimatedTokens() > tokenBudget) {
+                    // 预算已满，不再恢复更早的API上下文
+                    apiFull[0] = true;
+                } else {
+                    usedTokens[0] += message.getEstimatedTokens();
+                    restoredApi.add(message);
+                }
+            }
+            // UI第一页已满且API预算已满时停止读取，更早的记录留在数据库中
+            return restoredUi.size() < ChatHistoryPager.PAGE_SIZE || !apiFull[0];
+        });
+        pager.setHasMore(hasMore[0] || restoredUi.size() == ChatHistoryPager.PAGE_SIZE);
+
+        // 游标按时间倒序读取，恢复为正序
+        Collections.reverse(restoredUi);
+        Collections.reverse(restoredApi);
+
+        synchronized (uiHistory) {
+            // 读取前会先提交写入队列，加载期间发送的消息可能既在列表中又被读出，跳过已有的消息
+            Set<UUID> existingIds = new HashSet<>();
+            for (ChatMessage message : uiHistory) {
+                existingIds.add(message.getId());
+            }
+            restoredUi.removeIf(message -> existingIds.contains(message.getId()));
+            uiHistory.addAll(0, restoredUi);
+        }
+        if (apiHistory == null) {
+            return;
+        }
+        synchronized (apiHistory) {
+            Set<String> existingIds = new HashSet<>();
+            for (ApiRequestMessage message : apiHistory) {
+                if (message.getMessageId() != null) {
+                    existingIds.add(message.getMessageId());
+                }
+            }
+            restoredApi.removeIf(message -> existingIds.contains(message.getMessageId()));
+            // 上下文从user消息开始，避免出现没有提问的assistant回复
+            while (!restoredApi.isEmpty() && !"user".equals(restoredApi.get(0).getRole())) {
+                restoredApi.remove(0);
+            }
+            if (summaryMessage != null) {
+                // 摘要作为固定的system消息放在最前面，与摘要器生成时的位置一致
+                restoredApi.add(0, summaryMessage);
+            }
+            // 插入到人设提示等system消息之后
+            int firstTurn = 0;
+            while (firstTurn < apiHistory.size() && "system".equals(apiHistory.get(firstTurn).getRole())) {
+                firstTurn++;
+            }
+            apiHistory.addAll(firstTurn, restoredApi);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.data.repository;
+
+import com.example.demo.data.local.LocalDataSource;
+import com.example.demo.data.model.ChatHistory;
+import com.example.demo.model.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 聊天历史分页器
+ * 记录某个Persona已加载到UI的最早一条记录的(timestamp, id)，按键集分页向前加载更早的消息
+ * 打开聊天时只加载最新一页，用户向上滚动时再逐页加载，内存占用与已浏览的页数成正比
+ */
+class ChatHistoryPager {
+
+    // 每页加载的消息条数
+    static final int PAGE_SIZE = 30;
+
+    // Persona类型（"user"或"other"）
+    private final String personaType;
+
+    // Persona ID
+    private final long personaId;
+
+    // 已加载的最早一条记录的时间戳和主键ID，作为下一页的游标
+    private long oldestTimestamp = Long.MAX_VALUE;
+    private long oldestId = Long.MAX_VALUE;
+
+    // 是否还有更早的记录
+    private boolean hasMore = true;
+
+    // 是否正在加载
+    private boolean isLoading = false;
+
+    /**
+     * 构造函数
+     * @param personaType Persona类型（"user"或"other"）
+     * @param personaId Persona ID
+     */
+    ChatHistoryPager(String personaType, long personaId) {
+        this.personaType = personaType;
+        this.personaId = personaId;
+    }
+
+    /**
+     * 记录已加载到UI的一条记录，按时间从新到旧的顺序调用
+     * @param chatHistory 已加载的记录
+     */
+    synchronized void onRowLoaded(ChatHistory chatHistory) {
+        oldestTimestamp = chatHistory.getTimestamp();
+        oldestId = chatHistory.getId();
+    }
+
+    /**
+     * 设置是否还有更早的记录
+     * @param hasMore 还有更早的记录返回true
+     */
+    synchronized void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * 尝试开始加载下一页，已在加载或没有更多记录时返回false
+     * @return 可以开始加载返回true
+     */
+    synchronized boolean tryStartLoading() {
+        if (isLoading || !hasMore) {
+            return false;
+        }
+        isLoading = true;
+        return true;
+    }
+
+    /**
+     * 加载更早的一页，需在后台线程调用，且之前已成功调用tryStartLoading
+     * @param localDataSource 本地数据源
+     * @return 按时间正序排列的一页消息
+     */
+    List<ChatMessage> loadOlderPage(LocalDataSource localDataSource) {
+        long beforeTimestamp;
+        long beforeId;
+        synchronized (this) {
+            beforeTimestamp = oldestTimestamp;
+            beforeId = oldestId;
+        }
+
+        List<ChatHistory> rows = localDataSource.getChatHistoryPageBeforeSync(personaType, personaId, beforeTimestamp, beforeId, PAGE_SIZE);
+        List<ChatMessage> page = new ArrayList<>(rows.size());
+        // 查询结果按时间倒序，转换为正序插入到UI列表开头
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            page.add(ChatMessage.fromChatHistory(rows.get(i)));
+        }
+
+        synchronized (this) {
+            if (!rows.isEmpty()) {
+                ChatHistory oldest = rows.get(rows.size() - 1);
+                oldestTimestamp = oldest.getTimestamp();
+                oldestId = oldest.getId();
+            }
+            hasMore = rows.size() == PAGE_SIZE;
+            isLoading = false;
+        }
+        return page;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.data.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import retrofit2.Call;
+
+/**
+ * 聊天请求跟踪器
+ * 记录每个Persona正在进行的生成请求，保证每个Persona同时只有一个请求在进行
+ * 同一Persona发起新请求时取消旧请求；离开聊天界面或切换Persona时取消请求
+ * 每次请求对应一个递增的令牌，回调通过isCurrent判断结果是否已过期，过期的结果直接丢弃
+ */
+class ChatRequestTracker {
+
+    // 每个Persona当前请求的令牌
+    private final Map<Long, Long> currentTokens = new HashMap<>();
+
+    // 每个Persona当前请求的Call对象
+    private final Map<Long, Call<?>> activeCalls = new HashMap<>();
+
+    // 下一个令牌
+    private long nextToken = 1;
+
+    /**
+     * 开始一个新请求，取消该Persona之前仍在进行的请求
+     * @param personaId Persona ID
+     * @return 本次请求的令牌
+     */
+    synchronized long begin(long personaId) {
+        cancelCallLocked(personaId);
+        long token = nextToken++;
+        currentTokens.put(personaId, token);
+        return token;
+    }
+
+    /**
+     * 关联请求的Call对象，请求在关联前已被取消时立即取消该Call
+     * @param personaId Persona ID
+     * @param token 请求令牌
+     * @param call Call对象
+     */
+    synchronized void attach(long personaId, long token, Call<?> call) {
+        if (isCurrentLocked(personaId, token)) {
+            activeCalls.put(personaId, call);
+        } else {
+            call.cancel();
+        }
+    }
+
+    /**
+     * 判断请求是否仍是该Persona的当前请求
+     * @param personaId Persona ID
+     * @param token 请求令牌
+     * @return 未被取消或替代时返回true
+     */
+    synchronized boolean isCurrent(long personaId, long token) {
+        return isCurrentLocked(personaId, token);
+    }
+
+    /**
+     * 请求结束（成功或失败）时调用，释放对Call对象的引用
+     * @param personaId Persona ID
+     * @param token 请求令牌
+     */
+    synchronized void finish(long personaId, long token) {
+        if (isCurrentLocked(personaId, token)) {
+            currentTokens.remove(personaId);
+            activeCalls.remove(personaId);
+        }
+    }
+
+    /**
+     * 取消该Persona正在进行的请求
+     * @param personaId Persona ID
+     */
+    synchronized void cancel(long personaId) {
+        cancelCallLocked(personaId);
+        currentTokens.remove(personaId);
+    }
+
+    /**
+     * 取消所有Persona正在进行的请求
+     */
+    synchronized void cancelAll() {
+        for (Call<?> call : activeCalls.values()) {
+            call.cancel();
+        }
+        activeCalls.clear();
+        currentTokens.clear();
+    }
+
+    /**
+     * 判断请求是否为当前请求，调用方需持有锁
+     */
+    private boolean isCurrentLocked(long personaId, long token) {
+        Long current = currentTokens.get(personaId);
+        return current != null && current == token;
+    }
+
+    /**
+     * 取消并移除该Persona的Call对象，调用方需持有锁
+     */
+    private void cancelCallLocked(long personaId) {
+        Call<?> call = activeCalls.remove(personaId);
+        if (call != null) {
+            call.cancel();
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.example.demo.data.repository;
+
+import android.content.Context;
+
+import com.example.demo.BuildConfig;
+import com.example.demo.data.local.LocalDataSource;
+import com.example.demo.data.model.ConversationSummary;
+import com.example.demo.data.remote.ApiClient;
+import com.example.demo.data.remote.ApiService;
+import com.example.demo.data.remote.ContextWindowManager;
+import com.example.demo.data.remote.RequestPriority;
+import com.example.demo.data.remote.model.ApiRequest;
+import com.example.demo.data.remote.model.ApiRequestMessage;
+import com.example.demo.data.remote.model.ApiResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import retrofit2.Response;
+
+/**
+ * 对话摘要器
+ * 当一段对话超过指定轮数或接近token预算后，在后台请求模型把较早的对话压缩成摘要
+ * 上下文窗口裁剪掉的消息也会交给摘要器，合并进摘要后才真正丢弃
+ * 摘要作为固定的system消息放在人设提示之后，被摘要的对话不再随请求发送
+ * 摘要同时保存到数据库，冷启动时由ChatHistoryHydrator恢复
+ * 数据库中的chat_history不受影响，UI仍显示完整聊天记录
+ * 使用单例模式，所有聊天仓库共用一个后台线程
+ */
+public class ConversationSummarizer {
+
+    // 对话消息数（不含system消息）超过该值时触发摘要
+    public static final int DEFAULT_TRIGGER_MESSAGES = 20;
+
+    // 对话估算token数超过该值时触发摘要，在上下文窗口开始裁剪之前完成压缩
+    public static final int DEFAULT_TRIGGER_TOKENS = ContextWindowManager.DEFAULT_TOKEN_BUDGET * 3 / 4;
+
+    // 摘要后保留原文的最近对话消息数
+    public static final int DEFAULT_KEEP_RECENT_MESSAGES = 8;
+
+    // 摘要消息的前缀，用于识别已有的摘要
+    private static final String SUMMARY_PREFIX = "以下是你和我之前对话的摘要，请延续其中的人设、事实和情绪：";
+
+    // 生成摘要的系统提示
+    private static final String SUMMARIZER_PROMPT = "你是一个对话摘要助手。" +
+            "请把下面的角色扮演对话压缩成一段不超过200字的摘要，" +
+            "保留双方提到的重要事实、约定、称呼和情感变化，使用第三人称，不要添加对话中没有的内容。" +
+            "只返回摘要正文。";
+
+    // 单例实例
+    private static ConversationSummarizer instance;
+
+    // Retrofit API服务接口
+    private final ApiService apiService;
+
+    // 本地数据源，用于保存摘要
+    private final LocalDataSource localDataSource;
+
+    // 后台单线程执行器，摘要请求不会阻塞sendMessage和UI线程
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    // 正在摘要的对话历史，按对象身份区分，避免同一段对话重复提交，由自身的锁保护
+    private final Set<List<ApiRequestMessage>> summarizingHistories =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // 被上下文窗口裁剪、尚未合并进摘要的消息，按对话历史的对象身份区分，由summarizingHistories的锁保护
+    private final Map<List<ApiRequestMessage>, List<ApiRequestMessage>> pendingEvicted = new IdentityHashMap<>();
+
+    // 触发摘要的对话消息数
+    private final int triggerMessages;
+
+    // 触发摘要的估算token数
+    private final int triggerTokens;
+
+    // 摘要后保留原文的最近对话消息数
+    private final int keepRecentMessages;
+
+    /**
+     * 私有构造函数，防止外部实例化
+     */
+    private ConversationSummarizer(Context context) {
+        this.apiService = ApiClient.getApiService();
+        this.localDataSource = LocalDataSource.getInstance(context);
+        this.triggerMessages = DEFAULT_TRIGGER_MESSAGES;
+        this.triggerTokens = DEFAULT_TRIGGER_TOKENS;
+        this.keepRecentMessages = DEFAULT_KEEP_RECENT_MESSAGES;
+    }
+
+    /**
+     * 获取单例实例
+     * @param context 上下文
+     * @return ConversationSummarizer的单例实例
+     */
+    public static synchronized ConversationSummarizer getInstance(Context context) {
+        if (instance == null) {
+            instance = new ConversationSummarizer(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * 检查对话长度，超过阈值或有待合并的裁剪消息时在后台生成摘要
+     * 该方法立即返回，不会阻塞调用线程
+     * @param personaType Persona类型（"user"或"other"），用于保存摘要
+     * @param personaId Persona ID
+     * @param history 某个Persona的API消息历史
+     */
+    public void maybeSummarize(String personaType, long personaId, List<ApiRequestMessage> history) {
+        boolean hasEvicted;
+        synchronized (summarizingHistories) {
+            hasEvicted = pendingEvicted.containsKey(history);
+        }
+        if (!hasEvicted) {
+            synchronized (history) {
+                if (!needsSummary(history)) {
+                    return;
+                }
+            }
+        }
+        schedule(personaType, personaId, history);
+    }
+
+    /**
+     * 接收被上下文窗口裁剪掉的消息，在后台合并进摘要
+     * 该方法立即返回，不会阻塞调用线程
+     * @param personaType Persona类型（"user"或"other"），用于保存摘要
+     * @param personaId Persona ID
+     * @param history 某个Persona的API消息历史
+     * @param evicted ContextWindowManager.trim()返回的被裁剪消息，按原顺序排列
+     */
+    public void summarizeEvicted(String personaType, long personaId, List<ApiRequestMessage> history,
+                                 List<ApiRequestMessage> evicted) {
+        if (evicted.isEmpty()) {
+            return;
+        }
+        synchronized (summarizingHistories) {
+            List<ApiRequestMessage> pending = pendingEvicted.get(history);
+            if (pending == null) {
+                pending = new ArrayList<>();
+                pendingEvicted.put(history, pending);
+            }
+            pending.addAll(evicted);
+        }
+        schedule(personaType, personaId, history);
+    }
+
+    /**
+     * 提交后台摘要任务，同一段对话同时只有一个任务
+     * 任务执行期间新裁剪的消息留在待合并队列中，下次回复后再合并
+     * @param personaType Persona类型
+     * @param personaId Persona ID
+     * @param history 某个Persona的API消息历史
+     */
+    private void schedule(String personaType, long personaId, List<ApiRequestMessage> history) {
+        synchronized (summarizingHistories) {
+            if (!summarizingHistories.add(history)) {
+                return;
+            }
+        }
+        executorService.execute(() -> {
+            try {
+                summarize(personaType, personaId, history);
+            } finally {
+                synchronized (summarizingHistories) {
+                    summarizingHistories.remove(history);
+                }
+            }
+        });
+    }
+
+    /**
+     * 判断对话是否需要摘要，调用方需持有history的锁
+     * @param history 消息历史
+     * @return 对话消息数或估算token数超过阈值时返回true
+     */
+    private boolean needsSummary(List<ApiRequestMessage> history) {
+        return history.size() - countLeadingSystemMessages(history) > triggerMessages
+                || ContextWindowManager.estimateTokens(history) > triggerTokens;
+    }
+
+    /**
+     * 生成摘要并替换较早的对话消息，在后台线程执行
+     * 被裁剪的消息和历史中较早的对话一起交给模型，摘要成功后保存到数据库
+     * @param personaType Persona类型
+     * @param personaId Persona ID
+     * @param history 某个Persona的API消息历史
+     */
+    private void summarize(String personaType, long personaId, List<ApiRequestMessage> history) {
+        List<ApiRequestMessage> evicted;
+        synchronized (summarizingHistories) {
+            evicted = pendingEvicted.remove(history);
+        }
+        // 被裁剪的消息比历史中剩余的消息更早，放在前面
+        List<ApiRequestMessage> summarizedMessages = evicted != null ? new ArrayList<>(evicted) : new ArrayList<>();
+        // 从历史中摘要的消息，摘要成功后从历史中移除
+        List<ApiRequestMessage> fromHistory = new ArrayList<>();
+        ApiRequestMessage previousSummary;
+        synchronized (history) {
+            int firstTurn = countLeadingSystemMessages(history);
+            previousSummary = findSummary(history, firstTurn);
+
+            if (needsSummary(history)) {
+                int turnCount = history.size() - firstTurn;
+                int summarizeCount = turnCount - keepRecentMessages;
+                // 让保留的部分从user消息开始，保证问答成对
+                while (summarizeCount > 0 && summarizeCount < turnCount
+                        && !"user".equals(history.get(firstTurn + summarizeCount).getRole())) {
+                    summarizeCount++;
+                }
+                if (summarizeCount > 0 && summarizeCount < turnCount) {
+                    fromHistory.addAll(history.subList(firstTurn, firstTurn + summarizeCount));
+                }
+            }
+        }
+        summarizedMessages.addAll(fromHistory);
+        if (summarizedMessages.isEmpty()) {
+            return;
+        }
+
+        String summary = requestSummary(previousSummary, summarizedMessages);
+        if (summary == null) {
+            // 摘要失败时被裁剪的消息放回队列，下次回复后重试
+            if (evicted != null) {
+                synchronized (summarizingHistories) {
+                    List<ApiRequestMessage> pending = pendingEvicted.get(history);
+                    if (pending != null) {
+                        evicted.addAll(pending);
+                    }
+                    pendingEvicted.put(history, evicted);
+                }
+            }
+            return;
+        }
+
+        synchronized (history) {
+            // 期间可能有消息已被上下文窗口裁剪，只移除仍在历史中的消息
+            Set<ApiRequestMessage> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+            toRemove.addAll(fromHistory);
+            if (previousSummary != null) {
+                toRemove.add(previousSummary);
+            }
+            history.removeIf(toRemove::contains);
+            // 摘要放在人设提示等system消息之后，作为固定上下文
+            history.add(countLeadingSystemMessages(history), toSystemMessage(summary));
+        }
+        // 期间被裁剪的消息如果已经包含在本次摘要中，从待合并队列中移除，避免重复摘要
+        if (!fromHistory.isEmpty()) {
+            Set<ApiRequestMessage> summarized = Collections.newSetFromMap(new IdentityHashMap<>());
+            summarized.addAll(fromHistory);
+            synchronized (summarizingHistories) {
+                List<ApiRequestMessage> pending = pendingEvicted.get(history);
+                if (pending != null) {
+                    pending.removeIf(summarized::contains);
+                    if (pending.isEmpty()) {
+                        pendingEvicted.remove(history);
+                    }
+                }
+            }
+        }
+        // 保存摘要，记录覆盖到的最后一条聊天记录，冷启动时只恢复之后的记录
+        localDataSource.saveConversationSummary(
+                new ConversationSummary(personaType, personaId, summary, findLastMessageId(summarizedMessages)));
+    }
+
+    /**
+     * 把摘要正文包装为固定的system消息
+     * @param summary 摘要正文
+     * @return system消息
+     */
+    static ApiRequestMessage toSystemMessage(String summary) {
+        return new ApiRequestMessage("system", SUMMARY_PREFIX + summary);
+    }
+
+    /**
+     * 查找被摘要的消息中最后一条有聊天记录ID的消息
+     * @param messages 被摘要的消息，按时间顺序排列
+     * @return 消息ID，没有时返回null
+     */
+    private static String findLastMessageId(List<ApiRequestMessage> messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i).getMessageId() != null) {
+                return messages.get(i).getMessageId();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 请求模型生成摘要
+     * @param previousSummary 已有的摘要，可能为null
+     * @param messages 要摘要的对话消息
+     * @return 摘要文本，失败时返回null
+     */
+    private String requestSummary(ApiRequestMessage previousSummary, List<ApiRequestMessage> messages) {
+        StringBuilder transcript = new StringBuilder();
+        if (previousSummary != null) {
+            transcript.append("更早对话的摘要：")
+                    .append(previousSummary.getContent().substring(SUMMARY_PREFIX.length()))
+                    .append("\n");
+        }
+        for (ApiRequestMessage message : messages) {
+            transcript.append("user".equals(message.getRole()) ? "我: " : "角色: ")
+                    .append(message.getContent())
+                    .append("\n");
+        }
+
+        List<ApiRequestMessage> summaryMessages = new ArrayList<>();
+        summaryMessages.add(new ApiRequestMessage("system", SUMMARIZER_PROMPT));
+        summaryMessages.add(new ApiRequestMessage("user", transcript.toString()));
+        ApiRequest request = new ApiRequest(BuildConfig.MODEL_NAME, summaryMessages);
+
+        try {
+            Response<ApiResponse> response = apiService.getApiResponse(BuildConfig.API_KEY, request, RequestPriority.BACKGROUND).execute();
+            if (response.isSuccessful() && response.body() != null) {
+                String summary = response.body().getFirstMessageContent();
+                if (summary != null && !summary.trim().isEmpty()) {
+                    return summary.trim();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // 摘要失败不影响聊天，下次回复后会重试；后台线程上的运行时异常也不能抛出导致应用崩溃
+        }
+        return null;
+    }
+
+    /**
+     * 统计开头连续的system消息数
+     * @param history 消息历史
+     * @return system消息数
+     */
+    private static int countLeadingSystemMessages(List<ApiRequestMessage> history) {
+        int count = 0;
+        while (count < history.size() && "system".equals(history.get(count).getRole())) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 在开头的system消息中查找已有的摘要
+     * @param history 消息历史
+     * @param systemCount 开头的system消息数
+     * @return 摘要消息，没有则返回null
+     */
+    private static ApiRequestMessage findSummary(List<ApiRequestMessage> history, int systemCount) {
+        for (int i = 0; i < systemCount; i++) {
+            ApiRequestMessage message = history.get(i);
+            if (message.getContent() != null && message.getContent().startsWith(SUMMARY_PREFIX)) {
+                return message;
+            }
+        }
+        return null;
+    }
+}
@@ -158,6 +158,34 @@ public class OtherPersonaPostRepository {
         socialPostsLiveData.setValue(posts);
     }
 
+    /**
+     * 用指定数量的富文本帖子替换模拟数据，仅供宏基准测试使用
+     * 帖子轮流包含粗体、斜体、删除线、列表、代码、链接和表格，覆盖Markdown渲染的主要开销，需在主线程调用
+     * @param count 帖子数量
+     */
+    public void loadBenchmarkPosts(int count) {
+        String[] names = {"AI 画家·零", "赛博诗人·K", "历史学家·T800", "哲学家·苏格拉底2.0",
+                "游戏设计师·像素大师", "美食家·味蕾AI", "天文学家·星尘"};
+        List<Post> posts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            OtherPersona author = otherPersonaRepository.getPersonaByName(names[i % names.length]);
+            if (author == null) {
+                continue;
+            }
+            StringBuilder content = new StringBuilder()
+                    .append("**第").append(i + 1).append("条动态**：今天的*灵感*来自~~旧的~~新的实验。\n\n")
+                    .append("- 观察 `sample_").append(i).append("()` 的输出\n")
+                    .append("- 记录在 [笔记](https://example.com/notes/").append(i).append(")\n")
+                    .append("1. 整理数据\n2. 复盘结论\n");
+            if (i % 3 == 0) {
+                content.append("\n| 指标 | 数值 |\n| --- | --- |\n| 次数 | ").append(i)
+                        .append(" |\n| 耗时 | ").append(i % 97).append("ms |\n");
+            }
+            posts.add(new Post(author, content.toString(), null, (i % 24 + 1) + " 小时前", false));
+        }
+        socialPostsLiveData.setValue(posts);
+    }
+
     /**
      * 获取社交帖子的LiveData
      * @return 可观察的社交帖子列表LiveData
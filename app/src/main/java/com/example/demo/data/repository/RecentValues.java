@@ -0,0 +1,53 @@
+package com.example.demo.data.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 最近生成内容的有界集合
+ * 一次性生成请求不保留对话历史，只用它记录最近几次生成的名称等少量信息，作为保持多样性的提示
+ * 超过容量时移除最早加入的值，因此附加到提示中的内容长度有上限
+ */
+class RecentValues {
+
+    // 最多保留的值数量
+    private final int capacity;
+
+    // 按加入顺序保存的值，最早的在最前面
+    private final LinkedHashSet<String> values = new LinkedHashSet<>();
+
+    /**
+     * 构造函数
+     * @param capacity 最多保留的值数量
+     */
+    RecentValues(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * 加入一个值，已存在时移到最后
+     * @param value 新值，为空时忽略
+     */
+    synchronized void add(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return;
+        }
+        values.remove(value);
+        values.add(value);
+        Iterator<String> iterator = values.iterator();
+        while (values.size() > capacity && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 获取当前保存的所有值
+     * @return 按加入顺序排列的副本
+     */
+    synchronized List<String> snapshot() {
+        return new ArrayList<>(values);
+    }
+}
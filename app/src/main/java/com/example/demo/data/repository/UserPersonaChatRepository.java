@@ -13,19 +13,20 @@ import com.example.demo.model.ChatMessage;
 import com.example.demo.model.UserPersona;
 import com.example.demo.data.remote.ApiClient;
 import com.example.demo.data.remote.ApiService;
+import com.example.demo.data.remote.ContextWindowManager;
+import com.example.demo.data.remote.StreamingChatClient;
 import com.example.demo.data.remote.model.ApiRequestMessage;
 import com.example.demo.data.remote.model.ApiRequest;
-import com.example.demo.data.remote.model.ApiResponse;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import com.example.demo.BuildConfig;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+
+import com.example.demo.BuildConfig;
 
 /**
  * 用户自己创建的Persona聊天数据仓库类
@@ -50,12 +51,24 @@ public class UserPersonaChatRepository {
     // 存储所有UserPersona的聊天历史记录，以Persona ID为key
     private final Map<Long, List<ChatMessage>> chatHistoryCache;
 
+    // 存储所有Persona的聊天历史分页器，以Persona ID为key
+    private final Map<Long, ChatHistoryPager> pagerMap = new HashMap<>();
+
     // 当前聊天的UserPersona
     private UserPersona currentPersona;
     
     // 本地数据源
     private final LocalDataSource localDataSource;
 
+    // 上下文窗口管理器，限制每次请求携带的历史token数
+    private final ContextWindowManager contextWindowManager = new ContextWindowManager(ContextWindowManager.DEFAULT_TOKEN_BUDGET);
+
+    // 对话摘要器，把较早的对话压缩成固定的system摘要
+    private final ConversationSummarizer conversationSummarizer;
+
+    // 请求跟踪器，每个Persona同时只保留一个生成请求
+    private final ChatRequestTracker requestTracker = new ChatRequestTracker();
+
     /**
      * 私有构造函数，防止外部实例化
      */
@@ -66,6 +79,7 @@ public class UserPersonaChatRepository {
         this.chatHistoryCache = new HashMap<>();
 
         localDataSource = LocalDataSource.getInstance(context);
+        conversationSummarizer = ConversationSummarizer.getInstance(context);
         
         // 后台线程加载所有聊天记录到缓存
         loadAllChatHistoryToCache();
@@ -101,6 +115,10 @@ public class UserPersonaChatRepository {
      * @param persona 当前聊天的UserPersona对象
      */
     public void setCurrentPersona(UserPersona persona) {
+        // 切换到其他Persona时取消上一个Persona仍在生成的回复
+        if (currentPersona != null && currentPersona.getId() != persona.getId()) {
+            requestTracker.cancel(currentPersona.getId());
+        }
         this.currentPersona = persona;
         
         // 构建系统提示，设置AI的角色和行为
@@ -121,46 +139,92 @@ public class UserPersonaChatRepository {
                 "你的个性签名是：" + signature + "。" +
                 "请你严格按照这个角色设定进行对话，不要暴露你是一个 AI 模型。";
 
-        // 获取或创建该Persona的API历史，如果是新创建的则添加系统提示
-        apiHistoryMap.computeIfAbsent(persona.getName(), k -> {
-            List<ApiRequestMessage> history = new ArrayList<>();
-            history.add(new ApiRequestMessage("system", systemPrompt));
-            return history;
-        });
+        // 获取或创建该Persona的API历史，如果是新创建的则添加系统提示，并需要从数据库恢复上下文
+        List<ApiRequestMessage> apiHistory = apiHistoryMap.get(persona.getName());
+        boolean needHydrateApi = apiHistory == null;
+        if (needHydrateApi) {
+            apiHistory = new ArrayList<>();
+            apiHistory.add(new ApiRequestMessage("system", systemPrompt));
+            apiHistoryMap.put(persona.getName(), apiHistory);
+        }
         
-        // 从缓存获取聊天历史记录，如果缓存中没有则从数据库加载
-        List<ChatMessage> cachedHistory = chatHistoryCache.get(persona.getId());
-        if (cachedHistory != null) {
-            // 缓存中有数据，直接更新LiveData
-            chatHistoryLiveData.postValue(cachedHistory);
+        // 从缓存获取聊天历史记录，如果缓存中没有则先放入空列表占位，再从数据库加载
+        List<ChatMessage> cachedHistory;
+        boolean needLoad;
+        synchronized (chatHistoryCache) {
+            cachedHistory = chatHistoryCache.get(persona.getId());
+            needLoad = cachedHistory == null;
+            if (needLoad) {
+                cachedHistory = new ArrayList<>();
+                chatHistoryCache.put(persona.getId(), cachedHistory);
+            }
+        }
+        if (needLoad) {
+            // 缓存中没有数据，从数据库加载；API历史是新建的则同时恢复上下文
+            loadChatHistoryFromDatabase(persona, cachedHistory, needHydrateApi ? apiHistory : null);
         } else {
-            // 缓存中没有数据，从数据库加载
-            loadChatHistoryFromDatabase(persona);
+            // 缓存中有数据，直接更新LiveData
+            publishUiHistory(persona.getId(), cachedHistory);
         }
     }
     
     /**
      * 从数据库加载聊天历史记录
+     * 一次游标读取同时恢复UI缓存的最新一页和API上下文，API上下文只恢复token预算内的最近几轮
+     * 加载结果插入到列表的最前面，加载期间发送的新消息不会丢失
      * @param persona 当前聊天的UserPersona对象
+     * @param uiHistory 该Persona的UI历史缓存列表
+     * @param apiHistory 该Persona的API消息历史，为null时不恢复API上下文
      */
-    private void loadChatHistoryFromDatabase(UserPersona persona) {
+    private void loadChatHistoryFromDatabase(UserPersona persona, List<ChatMessage> uiHistory, List<ApiRequestMessage> apiHistory) {
         new Thread(() -> {
-            // 从本地数据源查询聊天历史记录（使用同步方法）
-            List<ChatHistory> chatHistories = localDataSource.getChatHistoryByPersonaSync("user", persona.getId());
-            List<ChatMessage> personaChatHistory = new ArrayList<>();
+            ChatHistoryHydrator.hydrate(localDataSource, "user", persona.getId(), uiHistory, apiHistory,
+                    contextWindowManager.getTokenBudget(), getOrCreatePager(persona.getId()));
             
-            if (chatHistories != null && !chatHistories.isEmpty()) {
-                // 将ChatHistory转换为ChatMessage
-                for (ChatHistory chatHistory : chatHistories) {
-                    personaChatHistory.add(ChatMessage.fromChatHistory(chatHistory));
-                }
+            // 更新LiveData，UI将显示该Persona的聊天历史
+            publishUiHistory(persona.getId(), uiHistory);
+        }).start();
+    }
+
+    /**
+     * 获取指定Persona的分页器，不存在时创建
+     * @param personaId Persona ID
+     * @return 该Persona的分页器
+     */
+    private ChatHistoryPager getOrCreatePager(long personaId) {
+        synchronized (pagerMap) {
+            ChatHistoryPager pager = pagerMap.get(personaId);
+            if (pager == null) {
+                pager = new ChatHistoryPager("user", personaId);
+                pagerMap.put(personaId, pager);
             }
+            return pager;
+        }
+    }
 
-            // 更新缓存
-            chatHistoryCache.put(persona.getId(), personaChatHistory);
-            
-            // 更新LiveData，UI将显示该Persona的聊天历史
-            chatHistoryLiveData.postValue(personaChatHistory);
+    /**
+     * 加载当前Persona更早的一页聊天记录
+     * 用户滚动到顶部时调用，已在加载或没有更早记录时直接返回
+     */
+    public void loadOlderMessages() {
+        if (currentPersona == null) {
+            return;
+        }
+        final long personaId = currentPersona.getId();
+        ChatHistoryPager pager = getOrCreatePager(personaId);
+        if (!pager.tryStartLoading()) {
+            return;
+        }
+        List<ChatMessage> uiHistory = getOrCreateUiHistory(personaId);
+        new Thread(() -> {
+            List<ChatMessage> olderPage = pager.loadOlderPage(localDataSource);
+            if (olderPage.isEmpty()) {
+                return;
+            }
+            synchronized (uiHistory) {
+                uiHistory.addAll(0, olderPage);
+            }
+            publishUiHistory(personaId, uiHistory);
         }).start();
     }
 
@@ -173,107 +237,211 @@ public class UserPersonaChatRepository {
     }
     
     /**
-     * 发送用户消息到API并获取回复
+     * 获取指定Persona的UI历史缓存，不存在时创建
+     * @param personaId Persona ID
+     * @return 该Persona的UI历史列表
+     */
+    private List<ChatMessage> getOrCreateUiHistory(long personaId) {
+        synchronized (chatHistoryCache) {
+            List<ChatMessage> uiHistory = chatHistoryCache.get(personaId);
+            if (uiHistory == null) {
+                uiHistory = new ArrayList<>();
+                chatHistoryCache.put(personaId, uiHistory);
+            }
+            return uiHistory;
+        }
+    }
+
+    /**
+     * 将指定Persona的UI历史快照发布到LiveData
+     * 每次发布新的列表副本，ListAdapter才能正确计算差异
+     * 只有该Persona仍是当前聊天对象时才发布
+     * @param personaId Persona ID
+     * @param uiHistory 该Persona的UI历史列表
+     */
+    private void publishUiHistory(long personaId, List<ChatMessage> uiHistory) {
+        if (currentPersona == null || currentPersona.getId() != personaId) {
+            return;
+        }
+        List<ChatMessage> snapshot;
+        synchronized (uiHistory) {
+            snapshot = new ArrayList<>(uiHistory);
+        }
+        chatHistoryLiveData.postValue(snapshot);
+    }
+
+    /**
+     * 用新的消息对象替换UI历史中ID相同的消息，不存在时追加到末尾
+     * @param uiHistory UI历史列表
+     * @param message 新的消息对象
+     */
+    private void replaceOrAppend(List<ChatMessage> uiHistory, ChatMessage message) {
+        synchronized (uiHistory) {
+            for (int i = uiHistory.size() - 1; i >= 0; i--) {
+                if (uiHistory.get(i).getId().equals(message.getId())) {
+                    uiHistory.set(i, message);
+                    return;
+                }
+            }
+            uiHistory.add(message);
+        }
+    }
+
+    /**
+     * 发送用户消息到API并以流式方式获取回复
+     * 回复的每个增量都会立即推送到聊天LiveData，由打字机效果逐字消费
      * @param userMessageText 用户输入的消息文本
      */
     public void sendMessage(String userMessageText) {
         if (currentPersona == null) {
-            handleApiError("当前没有设置聊天的Persona");
             return;
         }
+        // 记录发送时的Persona，回复到达时写入该Persona的历史
+        final UserPersona persona = currentPersona;
 
         // 创建用户消息并添加到UI历史（使用默认用户头像）
         ChatMessage uiUserMessage = new ChatMessage(userMessageText, true, R.drawable.icon_persona, null);
-        List<ChatMessage> currentUiHistory = chatHistoryLiveData.getValue();
-        if (currentUiHistory == null) {
-            currentUiHistory = new ArrayList<>();
+        List<ChatMessage> uiHistory = getOrCreateUiHistory(persona.getId());
+        synchronized (uiHistory) {
+            uiHistory.add(uiUserMessage);
         }
-        currentUiHistory.add(uiUserMessage);
-        chatHistoryLiveData.setValue(currentUiHistory);
+        publishUiHistory(persona.getId(), uiHistory);
         
         // 保存用户消息到数据库
-        saveMessageToDatabase(uiUserMessage);
+        saveMessageToDatabase(persona, uiUserMessage);
 
         // 获取当前Persona的API历史
-        List<ApiRequestMessage> currentApiHistory = apiHistoryMap.get(currentPersona.getName());
-        if (currentApiHistory == null) {
-            currentApiHistory = new ArrayList<>();
+        List<ApiRequestMessage> apiHistory = apiHistoryMap.get(persona.getName());
+        if (apiHistory == null) {
+            apiHistory = new ArrayList<>();
+            apiHistoryMap.put(persona.getName(), apiHistory);
+        }
+        // 添加用户消息到API历史，请求使用历史的快照，避免流式回调期间被并发修改
+        ApiRequest request;
+        List<ApiRequestMessage> evicted;
+        synchronized (apiHistory) {
+            apiHistory.add(new ApiRequestMessage("user", userMessageText, uiUserMessage.getId().toString()));
+            // 裁剪最早的对话轮次，使请求大小不随对话轮数线性增长
+            evicted = contextWindowManager.trim(apiHistory);
+            request = new ApiRequest(BuildConfig.MODEL_NAME, new ArrayList<>(apiHistory), true);
         }
-        // 添加用户消息到API历史
-        currentApiHistory.add(new ApiRequestMessage("user", userMessageText));
-        ApiRequest request = new ApiRequest(BuildConfig.MODEL_NAME, currentApiHistory);
+        // 被裁剪的轮次在后台合并进摘要，不直接丢失
+        conversationSummarizer.summarizeEvicted("user", persona.getId(), apiHistory, evicted);
+
+        final List<ApiRequestMessage> targetApiHistory = apiHistory;
+        // 登记新请求，同一Persona仍在进行的上一个请求会被取消
+        final long requestToken = requestTracker.begin(persona.getId());
+        Call<ResponseBody> call = StreamingChatClient.stream(apiService, BuildConfig.API_KEY, request, new StreamingChatClient.StreamCallback() {
+            // 正在接收的AI消息，首个增量到达时创建
+            private ChatMessage aiMessage;
 
-        // 异步调用API
-        apiService.getApiResponse(BuildConfig.API_KEY, request).enqueue(new Callback<ApiResponse>() {
             @Override
-            public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    // 获取AI回复内容
-                    String aiContent = response.body().getFirstMessageContent();
-
-                    if (aiContent != null) {
-                        List<ApiRequestMessage> apiHistory = apiHistoryMap.get(currentPersona.getName());
-                        List<ChatMessage> uiHistory = chatHistoryLiveData.getValue();
-                        // 添加AI消息到API历史
-                        if (apiHistory != null) {
-                            apiHistory.add(new ApiRequestMessage("assistant", aiContent));
-                        }
-                        // 添加AI消息到UI历史
-                        ChatMessage aiMessage = new ChatMessage(aiContent, false, currentPersona.getAvatarDrawableId(), currentPersona.getAvatarUri());
-                        if (uiHistory != null) {
-                            uiHistory.add(aiMessage);
-                        }
-                        // 使用postValue在后台线程更新LiveData
-                        chatHistoryLiveData.postValue(uiHistory);
-                        
-                        // 保存AI消息到数据库
-                        saveMessageToDatabase(aiMessage);
-                    } else {
-                        handleApiError("API 返回了空内容");
-                    }
+            public void onDelta(String delta) {
+                // 已被取消或替代的请求不再更新界面
+                if (!requestTracker.isCurrent(persona.getId(), requestToken)) {
+                    return;
+                }
+                if (aiMessage == null) {
+                    aiMessage = new ChatMessage(delta, false, persona.getAvatarDrawableId(), persona.getAvatarUri());
+                    aiMessage.setStreaming(true);
                 } else {
-                    handleApiError("API 错误: " + response.code() + " " + response.message());
+                    aiMessage = aiMessage.copyWithText(aiMessage.getText() + delta);
+                }
+                replaceOrAppend(uiHistory, aiMessage);
+                publishUiHistory(persona.getId(), uiHistory);
+            }
+
+            @Override
+            public void onComplete(String fullContent) {
+                if (!requestTracker.isCurrent(persona.getId(), requestToken)) {
+                    // 回复到达前请求已被替代，后续请求的上下文中没有这条回复，不再加入API历史
+                    onCancelled();
+                    return;
+                }
+                requestTracker.finish(persona.getId(), requestToken);
+                if (fullContent.isEmpty()) {
+                    handleApiError(persona, "API 返回了空内容");
+                    return;
+                }
+                // 添加AI消息到API历史
+                synchronized (targetApiHistory) {
+                    targetApiHistory.add(new ApiRequestMessage("assistant", fullContent,
+                            aiMessage != null ? aiMessage.getId().toString() : null));
+                }
+                // 对话较长时在后台把较早的轮次压缩成摘要
+                conversationSummarizer.maybeSummarize("user", persona.getId(), targetApiHistory);
+                finishAiMessage(fullContent);
+            }
+
+            @Override
+            public void onError(String error) {
+                if (!requestTracker.isCurrent(persona.getId(), requestToken)) {
+                    onCancelled();
+                    return;
+                }
+                requestTracker.finish(persona.getId(), requestToken);
+                // 已收到的部分回复保留在UI和数据库中
+                if (aiMessage != null) {
+                    finishAiMessage(aiMessage.getText());
                 }
+                handleApiError(persona, error);
             }
 
             @Override
-            public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
-                handleApiError("网络请求失败: " + t.getMessage());
+            public void onCancelled() {
+                // 已显示的部分回复结束流式状态并保存，不显示错误提示
+                if (aiMessage != null) {
+                    finishAiMessage(aiMessage.getText());
+                }
+            }
+
+            /**
+             * 结束流式接收，更新UI并保存AI消息到数据库
+             * @param content AI消息的最终内容
+             */
+            private void finishAiMessage(String content) {
+                ChatMessage finalMessage = aiMessage != null
+                        ? aiMessage.copyWithText(content)
+                        : new ChatMessage(content, false, persona.getAvatarDrawableId(), persona.getAvatarUri());
+                finalMessage.setStreaming(false);
+                aiMessage = finalMessage;
+                replaceOrAppend(uiHistory, finalMessage);
+                publishUiHistory(persona.getId(), uiHistory);
+                
+                // 保存AI消息到数据库
+                saveMessageToDatabase(persona, finalMessage);
             }
         });
+        requestTracker.attach(persona.getId(), requestToken, call);
     }
     
     /**
      * 将消息保存到数据库
+     * @param persona 消息所属的Persona
      * @param message 聊天消息对象
      */
-    private void saveMessageToDatabase(ChatMessage message) {
-        if (currentPersona == null) {
-            return;
-        }
-        
+    private void saveMessageToDatabase(UserPersona persona, ChatMessage message) {
         // 将ChatMessage转换为ChatHistory
-        ChatHistory chatHistory = message.toChatHistory("user", currentPersona.getId());
+        ChatHistory chatHistory = message.toChatHistory("user", persona.getId());
         // 保存到数据库
         localDataSource.insertChatHistory(chatHistory);
     }
 
     /**
      * 处理API错误
+     * @param persona 出错请求所属的Persona
      * @param errorMessage 错误信息
      */
-    private void handleApiError(String errorMessage) {
+    private void handleApiError(UserPersona persona, String errorMessage) {
         // 创建错误消息并添加到聊天历史
         ChatMessage errorReply = new ChatMessage("[系统错误: " + errorMessage + "]", false);
 
-        List<ChatMessage> uiHistory = chatHistoryLiveData.getValue();
-        if (uiHistory != null) {
+        List<ChatMessage> uiHistory = getOrCreateUiHistory(persona.getId());
+        synchronized (uiHistory) {
             uiHistory.add(errorReply);
-            chatHistoryLiveData.postValue(uiHistory);
-            
-            // 保存错误消息到数据库
-            saveMessageToDatabase(errorReply);
         }
+        publishUiHistory(persona.getId(), uiHistory);
+        // 错误提示只显示在本次会话中，不写入数据库，避免限流等临时错误变成永久的聊天记录
     }
     
     /**
@@ -285,8 +453,35 @@ public class UserPersonaChatRepository {
         if (currentPersona == null) {
             return;
         }
+
+        // 同步更新缓存中的消息状态，流式回复的后续副本会沿用该状态
+        List<ChatMessage> uiHistory = getOrCreateUiHistory(currentPersona.getId());
+        synchronized (uiHistory) {
+            for (ChatMessage message : uiHistory) {
+                if (message.getId().toString().equals(messageId)) {
+                    message.setTypewriterComplete(isComplete);
+                    break;
+                }
+            }
+        }
         
         // 更新数据库中的打字机完成状态
         localDataSource.updateTypewriterStatus(messageId, isComplete);
     }
-}
\ No newline at end of file
+
+    /**
+     * 取消所有正在生成的回复
+     * 聊天界面销毁时调用，避免继续消耗token和连接
+     */
+    public void cancelActiveRequests() {
+        requestTracker.cancelAll();
+    }
+
+    /**
+     * 立即提交尚在写入队列中的聊天记录
+     * 聊天界面不可见时调用，避免进程被回收时丢失最近的消息
+     */
+    public void flushPendingWrites() {
+        localDataSource.flushPendingWrites();
+    }
+}
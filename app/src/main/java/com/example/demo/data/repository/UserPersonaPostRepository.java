@@ -1,16 +1,22 @@
 package com.example.demo.data.repository;
 
+import android.content.Context;
+
 import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.example.demo.data.local.ResponseCache;
 import com.example.demo.model.UserPersona;
 import com.example.demo.model.Post;
 import com.example.demo.data.remote.ApiClient;
 import com.example.demo.data.remote.ApiService;
+import com.example.demo.data.remote.JsonExtractor;
+import com.example.demo.data.remote.RequestPriority;
 import com.example.demo.data.remote.model.ApiRequestMessage;
 import com.example.demo.data.remote.model.ApiRequest;
 import com.example.demo.data.remote.model.ApiResponse;
+import com.example.demo.data.remote.model.ApiResponseFormat;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -18,6 +24,8 @@ import org.json.JSONObject;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.example.demo.BuildConfig;
 import retrofit2.Call;
@@ -78,8 +86,18 @@ public class UserPersonaPostRepository {
     private final ApiService apiService;
     private final Random random = new Random();
 
-    // 构建API请求历史
-    List<ApiRequestMessage> apiHistory = new ArrayList<>();
+    // AI回复磁盘缓存，相同的扩展请求直接返回本地结果
+    private final ResponseCache responseCache;
+
+    // 读写回复缓存的后台线程
+    private final ExecutorService cacheExecutor = Executors.newSingleThreadExecutor();
+
+    // 系统提示，要求AI返回特定格式的JSON；所有请求共用同一个消息对象，序列化结果会被缓存
+    private static final ApiRequestMessage SYSTEM_MESSAGE = new ApiRequestMessage("system",
+            "你是一个社交媒体动态生成器。" +
+            "请你只返回一个 JSON 对象，格式如下：" +
+            "{\"content\": \"[生成的动态正文，必须包含Markdown格式，如**粗体**、*斜体*、~~删除线~~、列表等]\"}" +
+            "不要在 JSON 之外添加任何解释性文字。");
 
     // LiveData对象，用于观察数据变化
     private final MutableLiveData<List<Post>> userPostsLiveData = new MutableLiveData<>(new ArrayList<>());
@@ -88,15 +106,9 @@ public class UserPersonaPostRepository {
      * 私有构造函数
      * 初始化API服务实例
      */
-    private UserPersonaPostRepository() {
+    private UserPersonaPostRepository(Context context) {
         this.apiService = ApiClient.getApiService();
-        // 系统提示，要求AI返回特定格式的JSON
-        String systemPrompt = "你是一个社交媒体动态生成器。" +
-                "请你只返回一个 JSON 对象，格式如下：" +
-                "{\"content\": \"[生成的动态正文，必须包含Markdown格式，如**粗体**、*斜体*、~~删除线~~、列表等]\"}" +
-                "不要在 JSON 之外添加任何解释性文字。";
-
-        apiHistory.add(new ApiRequestMessage("system", systemPrompt));
+        this.responseCache = ResponseCache.getInstance(context);
     }
     
     /**
@@ -135,11 +147,12 @@ public class UserPersonaPostRepository {
     
     /**
      * 获取单例实例
+     * @param context 上下文，用于定位回复缓存目录
      * @return MyPersonaPostRepository的单例实例
      */
-    public static synchronized UserPersonaPostRepository getInstance() {
+    public static synchronized UserPersonaPostRepository getInstance(Context context) {
         if (instance == null) {
-            instance = new UserPersonaPostRepository();
+            instance = new UserPersonaPostRepository(context.getApplicationContext());
         }
         return instance;
     }
@@ -160,6 +173,18 @@ public class UserPersonaPostRepository {
      * @param callback 回调接口，用于处理结果
      */
     public void aiExpandContent(UserPersona currentUser, String currentContent, ContentCallback callback) {
+        aiExpandContent(currentUser, currentContent, false, callback);
+    }
+
+    /**
+     * AI扩展当前内容
+     * 根据当前用户的UserPersona设定扩展已有内容
+     * @param currentUser 当前用户的UserPersona对象
+     * @param currentContent 当前编辑框中的内容
+     * @param useCache 是否使用回复缓存，同一角色对同一内容的扩展会直接返回之前的结果
+     * @param callback 回调接口，用于处理结果
+     */
+    public void aiExpandContent(UserPersona currentUser, String currentContent, boolean useCache, ContentCallback callback) {
 
         // 生成随机数和语言选择
         int randomNumber = random.nextInt(10000);
@@ -186,13 +211,56 @@ public class UserPersonaPostRepository {
                 "请确保扩展后的内容简洁明了，字数控制在50-150字之间。" +
                 "(请求编号: " + randomNumber + ")";
 
-        apiHistory.add(new ApiRequestMessage("user", userPrompt));
-        
-        // 创建聊天请求
-        ApiRequest request = new ApiRequest(BuildConfig.MODEL_NAME, apiHistory);
+        // 创建聊天请求，只包含系统提示和本次的用户提示
+        ApiRequest request = buildRequest(userPrompt);
 
+        if (!useCache) {
+            requestExpandContent(request, null, callback);
+            return;
+        }
+        // 在后台线程查询缓存，命中时不再请求API
+        String cacheKey = ResponseCache.keyFor(BuildConfig.MODEL_NAME, null, request.getMessages());
+        cacheExecutor.execute(() -> {
+            String cachedContent = responseCache.get(cacheKey);
+            if (cachedContent != null) {
+                try {
+                    callback.onSuccess(JsonExtractor.parseObject(cachedContent, "content").getString("content"));
+                    return;
+                } catch (JSONException e) {
+                    // 缓存内容无法解析时重新请求
+                }
+            }
+            requestExpandContent(request, cacheKey, callback);
+        });
+    }
+
+    /**
+     * 构建一次性的生成请求
+     * 每次请求只包含系统提示和本次的用户提示，请求大小不随调用次数增长
+     * @param userPrompt 本次的用户提示
+     * @return 聊天请求对象
+     */
+    static ApiRequest buildRequest(String userPrompt) {
+        List<ApiRequestMessage> messages = new ArrayList<>();
+        messages.add(SYSTEM_MESSAGE);
+        messages.add(new ApiRequestMessage("user", userPrompt));
+        ApiRequest request = new ApiRequest(BuildConfig.MODEL_NAME, messages);
+        if (ApiClient.getProfile().isStructuredOutputEnabled()) {
+            // 要求模型只返回JSON对象，减少因格式错误浪费的请求
+            request.setResponseFormat(new ApiResponseFormat(ApiResponseFormat.TYPE_JSON_OBJECT));
+        }
+        return request;
+    }
+
+    /**
+     * 发送AI扩展请求
+     * @param request 聊天请求对象
+     * @param cacheKey 回复缓存key，不使用缓存时为null
+     * @param callback 回调接口，用于处理结果
+     */
+    private void requestExpandContent(ApiRequest request, String cacheKey, ContentCallback callback) {
         // 异步调用API
-        apiService.getApiResponse(BuildConfig.API_KEY, request).enqueue(new Callback<ApiResponse>() {
+        apiService.getApiResponse(BuildConfig.API_KEY, request, RequestPriority.BACKGROUND).enqueue(new Callback<ApiResponse>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                 
@@ -202,8 +270,12 @@ public class UserPersonaPostRepository {
                     if (aiContent != null) {
                         try {
                             // 解析JSON响应
-                            JSONObject jsonResponse = new JSONObject(aiContent);
+                            JSONObject jsonResponse = JsonExtractor.parseObject(aiContent, "content");
                             String expandedContent = jsonResponse.getString("content");
+                            // 只缓存格式正确的回复
+                            if (cacheKey != null) {
+                                cacheExecutor.execute(() -> responseCache.put(cacheKey, aiContent));
+                            }
                             callback.onSuccess(expandedContent);
                         } catch (JSONException e) {
                             // JSON解析错误
@@ -259,13 +331,11 @@ public class UserPersonaPostRepository {
                 "请确保动态内容简洁明了，字数控制在50-100字之间。" +
                 "(请求编号: " + randomNumber + ")";
 
-        apiHistory.add(new ApiRequestMessage("user", userPrompt));
-        
-        // 创建聊天请求
-        ApiRequest request = new ApiRequest(BuildConfig.MODEL_NAME, apiHistory);
+        // 创建聊天请求，只包含系统提示和本次的用户提示
+        ApiRequest request = buildRequest(userPrompt);
 
         // 异步调用API
-        apiService.getApiResponse(BuildConfig.API_KEY, request).enqueue(new Callback<ApiResponse>() {
+        apiService.getApiResponse(BuildConfig.API_KEY, request, RequestPriority.BACKGROUND).enqueue(new Callback<ApiResponse>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                 
@@ -275,7 +345,7 @@ public class UserPersonaPostRepository {
                     if (aiContent != null) {
                         try {
                             // 解析JSON响应
-                            JSONObject jsonResponse = new JSONObject(aiContent);
+                            JSONObject jsonResponse = JsonExtractor.parseObject(aiContent, "content");
                             String generatedContent = jsonResponse.getString("content");
                             callback.onSuccess(generatedContent);
                         } catch (JSONException e) {
@@ -10,16 +10,26 @@ import com.example.demo.data.local.LocalDataSource;
 import com.example.demo.model.UserPersona;
 import com.example.demo.data.remote.ApiClient;
 import com.example.demo.data.remote.ApiService;
+import com.example.demo.data.remote.JsonExtractor;
+import com.example.demo.data.remote.RequestPriority;
 import com.example.demo.data.remote.model.ApiRequestMessage;
 import com.example.demo.data.remote.model.ApiRequest;
 import com.example.demo.data.remote.model.ApiResponse;
+import com.example.demo.data.remote.model.ApiResponseFormat;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 import com.example.demo.BuildConfig;
 import com.example.demo.R;
@@ -68,7 +78,36 @@ public class UserPersonaRepository {
             "赛博朋克", "奇幻", "科幻", "蒸汽朋克", "神秘", "历史", "艺术家", "探险家", "AI", "时间旅行者"
     };
 
-    List<ApiRequestMessage> apiHistory = new ArrayList<>();
+    // 每次批量请求生成的人设数量
+    private static final int PERSONA_BATCH_SIZE = 5;
+
+    // 预取队列剩余数量不超过该值时在后台补充
+    private static final int PREFETCH_LOW_WATERMARK = 1;
+
+    // 提示中最多列出的最近生成的名称数量，至少覆盖两批
+    private static final int RECENT_NAME_COUNT = 10;
+
+    // 系统提示，所有请求共用同一个消息对象，序列化结果会被缓存
+    private static final ApiRequestMessage SYSTEM_MESSAGE = new ApiRequestMessage("system",
+            "你是一个富有创造力的人设生成器。" +
+            "请你只返回一个 JSON 对象，格式如下：" +
+            "{\"personas\": [{\"name\": \"[生成的人设名称]\", \"gender\": \"[生成的性别]\", \"personality\": \"[生成的性格]\", \"age\": [生成的年龄数字], \"relationship\": \"[生成的和我的关系，比如：情侣、父子、朋友、导师等]\", \"catchphrase\": \"[生成的口头禅]\", \"story\": \"[生成的背景故事，2-3句话]\"}]}" +
+            "personas数组中的人设数量与要求的数量相同，不要在 JSON 之外添加任何解释性文字。");
+
+    // 最近生成的人设名称，每次请求只携带这些名称而不是完整的历史提示
+    private final RecentValues recentNames = new RecentValues(RECENT_NAME_COUNT);
+
+    // 预取的人设队列，由prefetchLock保护
+    private final Deque<UserPersona> prefetchedPersonas = new ArrayDeque<>();
+
+    // 队列为空时等待批量请求结果的回调，由prefetchLock保护
+    private final Deque<ContentCallback> waitingCallbacks = new ArrayDeque<>();
+
+    // 保护预取队列的锁
+    private final Object prefetchLock = new Object();
+
+    // 是否有进行中的批量请求，由prefetchLock保护
+    private boolean isFetching = false;
 
     // LiveData对象，用于观察生成的UserPersona变化
     private final MutableLiveData<UserPersona> generatedPersonaLiveData = new MutableLiveData<>();
@@ -83,14 +122,6 @@ public class UserPersonaRepository {
         
         // 初始化本地数据源（使用单例实例）
         this.localDataSource = LocalDataSource.getInstance(context);
-        
-        // 初始化系统提示词，只在构造函数中初始化一次
-        // 系统提示词，在构造函数中初始化
-        String systemPrompt = "你是一个富有创造力的人设生成器。" +
-                "请你只返回一个 JSON 对象，格式如下：" +
-                "{\"name\": \"[生成的人设名称]\", \"gender\": \"[生成的性别]\", \"personality\": \"[生成的性格]\", \"age\": [生成的年龄数字], \"relationship\": \"[生成的和我的关系，比如：情侣、父子、朋友、导师等]\", \"catchphrase\": \"[生成的口头禅]\", \"story\": \"[生成的背景故事，2-3句话]\"}" +
-                "不要在 JSON 之外添加任何解释性文字。";
-        this.apiHistory.add(new ApiRequestMessage("system", systemPrompt));
     }
 
     /**
@@ -110,27 +141,50 @@ public class UserPersonaRepository {
 
     /**
      * 生成角色详情
-     * 调用AI API生成角色名称和背景故事
-     * 使用随机主题增加角色多样性
+     * 优先从预取队列中取出一个人设立即返回；队列为空时等待正在进行的批量请求
+     * 队列剩余数量不超过低水位时在后台再请求一批，后续点击无需等待网络
      * @param callback 回调接口，用于返回生成结果
      */
     public void generatePersonaDetails(ContentCallback callback) {
-        // 随机主题
-        String randomTheme = THEMES[random.nextInt(THEMES.length)];
+        UserPersona prefetched;
+        synchronized (prefetchLock) {
+            prefetched = prefetchedPersonas.poll();
+            if (prefetched == null) {
+                waitingCallbacks.add(callback);
+            }
+            refillIfNeededLocked();
+        }
+        if (prefetched != null) {
+            callback.onSuccess(prefetched);
+        }
+    }
 
-        // 用户提示，包含随机主题
-        String userPrompt = "请为我生成一个独特且有趣的 Persona 角色。" +
-                "请让人设带有一点 [" + randomTheme + "] 风格。" +
-                "确保生成的人设名称、性别、性格、年龄、关系、口头禅、背景故事与之前生成的都不同，每次生成的人设的名称第一个字都与之前的不同。";
+    /**
+     * 预先生成一批人设放入队列
+     * 进入创建页面时调用，第一次点击生成时即可直接返回
+     */
+    public void prefetchPersonas() {
+        synchronized (prefetchLock) {
+            refillIfNeededLocked();
+        }
+    }
 
-        // 添加用户提示到API历史记录
-        apiHistory.add(new ApiRequestMessage("user", userPrompt));
+    /**
+     * 队列数量不超过低水位且没有进行中的请求时，发起一次批量请求，调用方需持有prefetchLock
+     */
+    private void refillIfNeededLocked() {
+        if (isFetching || prefetchedPersonas.size() > PREFETCH_LOW_WATERMARK) {
+            return;
+        }
+        isFetching = true;
 
-        // 创建聊天请求
-        ApiRequest request = new ApiRequest(BuildConfig.MODEL_NAME, apiHistory);
+        // 每个人设使用不同的随机主题
+        List<String> themes = new ArrayList<>(Arrays.asList(THEMES));
+        Collections.shuffle(themes, random);
+        ApiRequest request = buildPersonaBatchRequest(themes.subList(0, PERSONA_BATCH_SIZE), recentNames.snapshot());
 
         // 异步调用API
-        apiService.getApiResponse(BuildConfig.API_KEY, request).enqueue(new Callback<ApiResponse>() {
+        apiService.getApiResponse(BuildConfig.API_KEY, request, RequestPriority.BACKGROUND).enqueue(new Callback<ApiResponse>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                 if (response.isSuccessful() && response.body() != null) {
@@ -140,48 +194,144 @@ public class UserPersonaRepository {
                     if (aiContent != null) {
                         try {
                             // 解析JSON响应
-                            JSONObject jsonResponse = new JSONObject(aiContent);
-
-                            String name = jsonResponse.getString("name");
-                            String gender = jsonResponse.getString("gender");
-                            String personality = jsonResponse.getString("personality");
-                            int age = jsonResponse.getInt("age");
-                            String relationship = jsonResponse.getString("relationship");
-                            String catchphrase = jsonResponse.getString("catchphrase");
-                            String story = jsonResponse.getString("story");
-
-                            // 创建UserPersona对象（使用默认头像，将catchphrase作为signature，id设为0由系统自动生成）
-                            int avatarId = R.drawable.avatar_zero;
-                            UserPersona generatedPersona = new UserPersona(
-                                    0, name, avatarId, null, catchphrase, story,
-                                    gender, age, personality, relationship, System.currentTimeMillis()
-                            );
-
-                            // 通过回调返回成功结果
-                            callback.onSuccess(generatedPersona);
-
+                            JSONObject jsonResponse = JsonExtractor.parseObject(aiContent, "personas");
+                            List<UserPersona> personas = parsePersonas(jsonResponse.getJSONArray("personas"));
+                            if (personas.isEmpty()) {
+                                onFetchFailed("AI 返回的数据格式错误: 没有有效的人设");
+                            } else {
+                                onFetchSucceeded(personas);
+                            }
                         } catch (JSONException e) {
                             // JSON解析错误
-                            callback.onError("AI 返回的数据格式错误: " + e.getMessage());
+                            onFetchFailed("AI 返回的数据格式错误: " + e.getMessage());
                         }
                     } else {
                         // API返回空内容
-                        callback.onError("API 返回了空内容");
+                        onFetchFailed("API 返回了空内容");
                     }
                 } else {
                     // API错误
-                    callback.onError("API 错误: " + response.code() + " " + response.message());
+                    onFetchFailed("API 错误: " + response.code() + " " + response.message());
                 }
             }
 
             @Override
             public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
                 // 网络错误
-                callback.onError("网络请求失败: " + t.getMessage());
+                onFetchFailed("网络请求失败: " + t.getMessage());
             }
         });
     }
 
+    /**
+     * 解析批量返回的人设数组，跳过字段不完整或名称重复的条目
+     * @param array 人设JSON数组
+     * @return 有效的人设列表
+     */
+    private List<UserPersona> parsePersonas(JSONArray array) {
+        List<UserPersona> personas = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject item = array.optJSONObject(i);
+            if (item == null) {
+                continue;
+            }
+            try {
+                String name = item.getString("name");
+                String gender = item.getString("gender");
+                String personality = item.getString("personality");
+                int age = item.getInt("age");
+                String relationship = item.getString("relationship");
+                String catchphrase = item.getString("catchphrase");
+                String story = item.getString("story");
+                if (!names.add(name)) {
+                    continue;
+                }
+
+                // 创建UserPersona对象（使用默认头像，将catchphrase作为signature，id设为0由系统自动生成）
+                int avatarId = R.drawable.avatar_zero;
+                personas.add(new UserPersona(
+                        0, name, avatarId, null, catchphrase, story,
+                        gender, age, personality, relationship, System.currentTimeMillis()
+                ));
+            } catch (JSONException e) {
+                // 单个条目格式错误时跳过，不影响同一批中的其他人设
+            }
+        }
+        return personas;
+    }
+
+    /**
+     * 批量请求成功，把人设放入队列并依次交给等待中的回调
+     * @param personas 新生成的人设
+     */
+    private void onFetchSucceeded(List<UserPersona> personas) {
+        List<ContentCallback> callbacks = new ArrayList<>();
+        List<UserPersona> results = new ArrayList<>();
+        synchronized (prefetchLock) {
+            isFetching = false;
+            for (UserPersona persona : personas) {
+                // 记录名称，下次生成时提示模型避开
+                recentNames.add(persona.getName());
+                prefetchedPersonas.add(persona);
+            }
+            while (!waitingCallbacks.isEmpty() && !prefetchedPersonas.isEmpty()) {
+                callbacks.add(waitingCallbacks.poll());
+                results.add(prefetchedPersonas.poll());
+            }
+            // 等待的回调比本批人设多，或队列已降到低水位时继续请求
+            refillIfNeededLocked();
+        }
+        for (int i = 0; i < callbacks.size(); i++) {
+            // 通过回调返回成功结果
+            callbacks.get(i).onSuccess(results.get(i));
+        }
+    }
+
+    /**
+     * 批量请求失败，通知所有等待中的回调
+     * @param error 错误信息
+     */
+    private void onFetchFailed(String error) {
+        List<ContentCallback> callbacks;
+        synchronized (prefetchLock) {
+            isFetching = false;
+            callbacks = new ArrayList<>(waitingCallbacks);
+            waitingCallbacks.clear();
+        }
+        for (ContentCallback callback : callbacks) {
+            callback.onError(error);
+        }
+    }
+
+    /**
+     * 构建批量生成人设的请求
+     * 一次请求返回多个人设，之前生成的结果只以名称列表的形式出现在提示中
+     * @param themes 每个人设的主题，数量即本次生成的人设数
+     * @param recentNames 最近生成的人设名称，数量有上限
+     * @return 聊天请求对象
+     */
+    static ApiRequest buildPersonaBatchRequest(List<String> themes, List<String> recentNames) {
+        StringBuilder userPrompt = new StringBuilder("请为我一次生成 ").append(themes.size())
+                .append(" 个独特且有趣的 Persona 角色，它们的风格依次带有一点 [")
+                .append(String.join("]、[", themes)).append("] 的味道。")
+                .append("这些人设之间的名称、性格、关系和背景故事都要互不相同，名称的第一个字也不能相同。");
+        if (!recentNames.isEmpty()) {
+            userPrompt.append("最近已经生成过这些人设：").append(String.join("、", recentNames))
+                    .append("。新人设也要与它们不同，名称的第一个字也不能与它们相同。");
+        }
+
+        List<ApiRequestMessage> messages = new ArrayList<>();
+        messages.add(SYSTEM_MESSAGE);
+        messages.add(new ApiRequestMessage("user", userPrompt.toString()));
+        ApiRequest request = new ApiRequest(BuildConfig.MODEL_NAME, messages);
+        if (ApiClient.getProfile().isStructuredOutputEnabled()) {
+            // 要求模型只返回JSON对象，减少因格式错误浪费的请求
+            request.setResponseFormat(new ApiResponseFormat(ApiResponseFormat.TYPE_JSON_OBJECT));
+        }
+        return request;
+    }
+
     /**
      * 获取生成的角色LiveData
      * @return 角色的LiveData对象
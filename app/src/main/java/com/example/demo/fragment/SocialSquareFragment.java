@@ -23,6 +23,7 @@ import com.example.demo.model.PostUiItem;
 import com.example.demo.adapter.SocialSquarePostAdapter;
 import com.example.demo.databinding.FragmentSocialSquareBinding;
 import com.example.demo.viewmodel.SocialSquareViewModel;
+import com.example.demo.utils.AvatarLoader;
 
 import java.util.List;
 
@@ -120,6 +121,8 @@ public class SocialSquareFragment extends Fragment {
 
         // 设置适配器
         fragmentSocialSquareBinding.rvSocialSquare.setAdapter(socialSquarePostAdapter);
+        // 滑动时预加载即将出现的帖子作者头像
+        AvatarLoader.attachPreloader(fragmentSocialSquareBinding.rvSocialSquare, socialSquarePostAdapter);
 
         // 设置观察者
         setupViewObservers();
@@ -151,8 +154,8 @@ public class SocialSquareFragment extends Fragment {
             @Override
             public void onChanged(List<PostUiItem> postUiItems) {
                 if (postUiItems != null && socialSquarePostAdapter != null) {
-                    // 更新适配器的数据，使用带回调的重载方法
-                    socialSquarePostAdapter.submitList(postUiItems);
+                    // 更新适配器的数据，首屏帖子在后台预先渲染完成后再提交
+                    socialSquarePostAdapter.submitPrerendered(postUiItems);
                 }
             }
         });
@@ -19,6 +19,7 @@ import com.example.demo.adapter.UserFollowedListAdapter;
 import com.example.demo.model.OtherPersona;
 import com.example.demo.databinding.FragmentFollowedListBinding;
 import com.example.demo.viewmodel.UserFollowedListViewModel;
+import com.example.demo.utils.AvatarLoader;
 
 import java.util.List;
 
@@ -114,6 +115,8 @@ public class UserFollowedListFragment extends Fragment {
             }
         });
         fragmentFollowedListBinding.rvFollowedList.setAdapter(userFollowedListAdapter);
+        // 滑动时预加载即将出现的头像
+        AvatarLoader.attachPreloader(fragmentFollowedListBinding.rvFollowedList, userFollowedListAdapter);
         
         // 观察已关注Persona列表的变化
         userFollowedListViewModel.getFollowedPersonas().observe(getViewLifecycleOwner(), new Observer<List<OtherPersona>>() {
@@ -12,10 +12,14 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.example.demo.BuildConfig;
 import com.example.demo.R;
+import com.example.demo.data.remote.ApiMetrics;
 import com.example.demo.databinding.FragmentProfileBinding;
 import com.example.demo.viewmodel.UserProfileViewModel;
 
+import java.util.Map;
+
 /**
  * 个人资料Fragment
  * 显示用户个人资料页面，包含我的Persona、应用设置、关于和退出登录等功能
@@ -78,6 +82,14 @@ public class UserProfileFragment extends Fragment {
             showAboutDialog();
         });
 
+        // 调试版本中长按"关于"查看API调用指标
+        if (BuildConfig.DEBUG) {
+            binding.tvAbout.setOnLongClickListener(v -> {
+                showApiMetricsDialog();
+                return true;
+            });
+        }
+
         // 设置"退出登录"点击事件
         binding.btnLogOut.setOnClickListener(v -> {
             viewModel.onLogOutClick();
@@ -108,6 +120,34 @@ public class UserProfileFragment extends Fragment {
         });
     }
 
+    /**
+     * 显示API调用指标对话框，仅用于调试版本
+     * 包含调用次数、传输字节数、首字节时间和各模块记录的计数器
+     */
+    private void showApiMetricsDialog() {
+        ApiMetrics.Snapshot snapshot = ApiMetrics.getInstance().getSnapshot();
+        StringBuilder message = new StringBuilder()
+                .append("调用次数：").append(snapshot.getTotalCalls())
+                .append("（失败 ").append(snapshot.getFailedCalls()).append("）\n")
+                .append("发送：").append(snapshot.getTotalBytesSent()).append(" B\n")
+                .append("接收：").append(snapshot.getTotalBytesReceived()).append(" B\n")
+                .append("首字节时间 P50/P90：").append(snapshot.getTtfbPercentile(50))
+                .append(" / ").append(snapshot.getTtfbPercentile(90)).append(" ms\n");
+        for (Map.Entry<String, Long> counter : snapshot.getCounters().entrySet()) {
+            message.append('\n').append(counter.getKey()).append(" = ").append(counter.getValue());
+        }
+        for (Map.Entry<String, Long> gauge : snapshot.getGauges().entrySet()) {
+            message.append('\n').append(gauge.getKey()).append(" = ").append(gauge.getValue());
+        }
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("API调用指标")
+                .setMessage(message)
+                .setPositiveButton("关闭", null)
+                .setNeutralButton("清空", (dialog, which) -> ApiMetrics.getInstance().reset())
+                .show();
+    }
+
     /**
      * 显示Toast消息
      * @param message 要显示的消息内容
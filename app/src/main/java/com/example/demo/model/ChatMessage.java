@@ -22,6 +22,8 @@ public class ChatMessage {
     private String avatarUri;
     // 打字机效果是否已完成
     private boolean isTypewriterComplete;
+    // 是否仍在接收流式增量（仅用于UI，不持久化）
+    private boolean isStreaming;
 
     /**
      * 构造函数
@@ -53,6 +55,20 @@ public class ChatMessage {
         this.isTypewriterComplete = false;
     }
 
+    /**
+     * 复制一条消息并替换文本内容
+     * 流式回复每收到一个增量就生成一个新对象，ListAdapter才能识别出内容变化
+     * @param text 新的消息文本
+     * @return 与当前消息ID相同、文本不同的新消息对象
+     */
+    public ChatMessage copyWithText(String text) {
+        ChatMessage copy = new ChatMessage(text, isSentByUser, avatarDrawableId, avatarUri);
+        copy.id = this.id;
+        copy.isTypewriterComplete = this.isTypewriterComplete;
+        copy.isStreaming = this.isStreaming;
+        return copy;
+    }
+
     // Getter和Setter方法
     public UUID getId() {
         return id;
@@ -102,6 +118,14 @@ public class ChatMessage {
         isTypewriterComplete = typewriterComplete;
     }
 
+    public boolean isStreaming() {
+        return isStreaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        isStreaming = streaming;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
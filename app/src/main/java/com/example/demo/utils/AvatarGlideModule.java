@@ -0,0 +1,47 @@
+package com.example.demo.utils;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+
+/**
+ * Glide全局配置
+ * 头像缩略图很小，内存缓存按屏幕数估算，保留约三屏的位图，滑回时直接命中内存缓存
+ * 磁盘缓存只保存裁剪后的缩略图和帖子图片，设置较小的上限
+ */
+@GlideModule
+public class AvatarGlideModule extends AppGlideModule {
+
+    // 内存缓存可容纳的屏幕数
+    private static final float MEMORY_CACHE_SCREENS = 3;
+
+    // 位图复用池可容纳的屏幕数
+    private static final float BITMAP_POOL_SCREENS = 2;
+
+    // 磁盘缓存上限（字节）
+    private static final long DISK_CACHE_BYTES = 64L * 1024 * 1024;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .setBitmapPoolScreens(BITMAP_POOL_SCREENS)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setMemorySizeCalculator(calculator);
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_BYTES));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        // 没有使用清单中声明的旧版GlideModule，跳过解析加快初始化
+        return false;
+    }
+}
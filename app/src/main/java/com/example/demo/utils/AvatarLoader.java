@@ -0,0 +1,159 @@
+package com.example.demo.utils;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+import com.example.demo.R;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 头像加载器
+ * 所有列表和聊天气泡的头像都通过这里加载：按统一的缩略图尺寸解码并圆形裁剪，
+ * 裁剪后的结果同时保存在内存缓存和磁盘缓存中，不同页面加载同一个头像时共用同一份缩略图
+ * 还提供RecyclerView的预加载监听，提前加载即将滑入屏幕的头像
+ */
+public final class AvatarLoader {
+
+    // 头像缩略图的边长（dp），不小于列表中最大的头像，较小的头像由ImageView缩小显示
+    private static final int THUMBNAIL_SIZE_DP = 64;
+
+    // 向前预加载的列表项数量
+    private static final int PRELOAD_AHEAD_ITEMS = 10;
+
+    /**
+     * 提供列表项头像的接口，由适配器实现
+     */
+    public interface AvatarModelProvider {
+        /**
+         * 获取指定位置的头像
+         * @param position 列表项位置
+         * @return 头像（Uri或资源ID），没有头像时返回null
+         */
+        @Nullable
+        Object getAvatarModel(int position);
+    }
+
+    /**
+     * 私有构造函数，防止实例化
+     */
+    private AvatarLoader() {
+    }
+
+    /**
+     * 根据头像URI和资源ID确定要加载的头像，优先使用avatarUri
+     * @param avatarUri 用户选择的头像URI，可以为null
+     * @param avatarDrawableId 头像资源ID，为0表示没有
+     * @param fallbackDrawableId 两者都没有时使用的默认头像
+     * @return 头像（Uri或资源ID）
+     */
+    public static Object modelOf(@Nullable String avatarUri, int avatarDrawableId, @DrawableRes int fallbackDrawableId) {
+        if (avatarUri != null) {
+            return Uri.parse(avatarUri);
+        }
+        return avatarDrawableId != 0 ? avatarDrawableId : fallbackDrawableId;
+    }
+
+    /**
+     * 加载头像到ImageView
+     * @param imageView 目标ImageView
+     * @param model 头像（Uri或资源ID）
+     */
+    public static void load(@NonNull ImageView imageView, @NonNull Object model) {
+        request(Glide.with(imageView), imageView.getContext(), model).into(imageView);
+    }
+
+    /**
+     * 构建头像请求
+     * 尺寸、裁剪方式和缓存策略在所有调用处保持一致，缓存key相同，结果可以共用
+     * @param requestManager Glide的RequestManager
+     * @param context 上下文，用于换算尺寸
+     * @param model 头像（Uri或资源ID）
+     * @return 头像请求
+     */
+    static RequestBuilder<Drawable> request(RequestManager requestManager, Context context, Object model) {
+        int size = thumbnailSizePx(context);
+        RequestBuilder<Drawable> builder;
+        if (model instanceof Integer) {
+            // 使用load(Integer)，Glide会为资源加上版本签名，应用更新后不会使用旧的缓存
+            builder = requestManager.load((Integer) model);
+        } else {
+            builder = requestManager.load(model);
+        }
+        return builder
+                .override(size, size) // 按缩略图尺寸解码，不再解码原图大小的位图
+                .circleCrop() // 圆形裁剪
+                .diskCacheStrategy(DiskCacheStrategy.RESOURCE) // 磁盘缓存裁剪后的缩略图
+                .placeholder(R.drawable.ic_launcher_background); // 占位图
+    }
+
+    /**
+     * 为RecyclerView添加头像预加载
+     * 滑动时按滑动方向提前加载后面若干项的头像，尺寸与显示时相同，绑定时直接命中缓存
+     * @param recyclerView 使用LinearLayoutManager的RecyclerView
+     * @param provider 提供列表项头像的适配器
+     */
+    public static void attachPreloader(RecyclerView recyclerView, AvatarModelProvider provider) {
+        Context context = recyclerView.getContext();
+        // 按RecyclerView所在的Activity或Fragment管理请求的生命周期
+        RequestManager requestManager = Glide.with(recyclerView);
+        int size = thumbnailSizePx(context);
+        ListPreloader.PreloadModelProvider<Object> modelProvider = new ListPreloader.PreloadModelProvider<Object>() {
+            @NonNull
+            @Override
+            public List<Object> getPreloadItems(int position) {
+                Object model = provider.getAvatarModel(position);
+                return model != null ? Collections.singletonList(model) : Collections.emptyList();
+            }
+
+            @Nullable
+            @Override
+            public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Object model) {
+                return request(requestManager, context, model);
+            }
+        };
+        ListPreloader<Object> preloader = new ListPreloader<>(requestManager, modelProvider,
+                new FixedPreloadSizeProvider<>(size, size), PRELOAD_AHEAD_ITEMS);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+                if (!(layoutManager instanceof LinearLayoutManager)) {
+                    return;
+                }
+                LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+                int first = linearLayoutManager.findFirstVisibleItemPosition();
+                int last = linearLayoutManager.findLastVisibleItemPosition();
+                if (first == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                // ListPreloader根据可见范围的变化判断滑动方向，不使用第一个参数
+                preloader.onScroll(null, first, last - first + 1, linearLayoutManager.getItemCount());
+            }
+        });
+    }
+
+    /**
+     * 缩略图边长（像素）
+     * @param context 上下文
+     * @return 像素值
+     */
+    private static int thumbnailSizePx(Context context) {
+        return Math.round(THUMBNAIL_SIZE_DP * context.getResources().getDisplayMetrics().density);
+    }
+}
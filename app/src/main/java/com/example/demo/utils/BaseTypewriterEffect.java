@@ -1,23 +1,30 @@
 package com.example.demo.utils;
 
-import android.os.Handler;
-import android.os.Looper;
+import android.graphics.Color;
+import android.text.Spannable;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.style.ForegroundColorSpan;
 import android.widget.TextView;
 
 /**
  * 打字机效果基类
  * 实现文本逐字显示的动画效果
- * 使用Handler和Looper在主线程中执行动画
+ * 由TypewriterFrameEngine在每帧驱动，按经过的时间一次显示若干字符
+ * 完整文本只设置一次，未显示的部分用透明色的span隐藏，显示进度只移动span，不重新排版
  */
-public abstract class BaseTypewriterEffect {
-    // 主线程Handler，用于执行延迟任务
-    protected final Handler handler;
+public abstract class BaseTypewriterEffect implements TypewriterFrameEngine.Client {
+    // 积压的字符最多用多长时间显示完（毫秒），重新绑定或增量一次到达较多时加快速度追上
+    private static final long MAX_CATCH_UP_MILLIS = 2000;
+
+    // 帧驱动引擎
+    protected final TypewriterFrameEngine engine;
     
     // 目标TextView控件
     protected final TextView textView;
     
-    // 要显示的完整文本
-    protected final String fullText;
+    // 要显示的完整文本，流式回复时会随增量到达不断变长
+    protected String fullText;
     
     // 每个字符显示的延迟时间（毫秒）
     protected final long delayMillis;
@@ -28,6 +35,27 @@ public abstract class BaseTypewriterEffect {
     // 当前显示的字符索引
     protected int currentIndex = 0;
 
+    // 文本是否已全部到达，非流式文本在创建时即完整
+    protected boolean isTextComplete = true;
+
+    // 是否已显示完当前文本、正在等待后续增量
+    protected boolean isWaitingForText = false;
+
+    // 打字机效果是否正在进行
+    protected boolean isRunning = false;
+
+    // 记录显示进度的key（消息ID），为null时不记录
+    protected String progressKey;
+
+    // 隐藏未显示部分的span
+    private final ForegroundColorSpan hiddenSpan = new ForegroundColorSpan(Color.TRANSPARENT);
+
+    // 上一帧的时间（纳秒），0表示下一帧重新开始计时
+    private long lastFrameTimeNanos = 0;
+
+    // 按时间累计、尚未显示的字符数（可以有小数部分）
+    private double pendingChars = 0;
+
     /**
      * 构造函数
      * @param textView 目标TextView控件
@@ -40,52 +68,180 @@ public abstract class BaseTypewriterEffect {
         this.fullText = fullText;
         this.delayMillis = delayMillis;
         this.textRenderer = textRenderer;
-        // 使用主线程Looper创建Handler，确保UI更新在主线程执行
-        this.handler = new Handler(Looper.getMainLooper());
+        this.engine = TypewriterFrameEngine.getInstance();
     }
 
     /**
      * 开始打字机效果
+     * 设置了进度key时从之前记录的位置继续
      */
     public void start() {
-        textView.setText("");
-        currentIndex = 0;
-        typeText();
+        currentIndex = progressKey != null ? Math.min(engine.getProgress(progressKey), fullText.length()) : 0;
+        isRunning = true;
+        isWaitingForText = false;
+        lastFrameTimeNanos = 0;
+        pendingChars = 0;
+        showText();
+        engine.add(this);
+    }
+
+    /**
+     * 更新要显示的文本
+     * 用于消费流式回复的增量：已显示的部分保持不变，新到达的字符继续逐字显示
+     * @param text 截至目前收到的完整文本
+     * @param isComplete 文本是否已全部到达
+     */
+    public void updateText(String text, boolean isComplete) {
+        this.fullText = text;
+        this.isTextComplete = isComplete;
+        if (!isRunning) {
+            return;
+        }
+        // 每个增量只重新设置一次文本
+        showText();
+        // 如果之前已追上文本末尾在等待增量，则恢复逐字显示
+        if (isWaitingForText) {
+            isWaitingForText = false;
+            lastFrameTimeNanos = 0;
+            engine.add(this);
+        }
     }
 
     /**
-     * 逐字显示文本
+     * 设置文本是否已全部到达，需在start之前调用
+     * @param isComplete 文本是否已全部到达
      */
-    protected void typeText() {
+    public void setTextComplete(boolean isComplete) {
+        this.isTextComplete = isComplete;
+    }
+
+    /**
+     * 设置记录显示进度的key，需在start之前调用
+     * @param progressKey 消息ID
+     */
+    public void setProgressKey(String progressKey) {
+        this.progressKey = progressKey;
+    }
+
+    /**
+     * 打字机效果是否正在进行
+     * @return 正在进行返回true
+     */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * 按经过的时间显示字符，由TypewriterFrameEngine每帧调用
+     * @param frameTimeNanos 当前帧的时间（纳秒）
+     * @return 还需要后续帧时返回true
+     */
+    @Override
+    public boolean onFrame(long frameTimeNanos) {
+        if (!isRunning || isWaitingForText) {
+            return false;
+        }
+        if (lastFrameTimeNanos != 0) {
+            double elapsedMillis = (frameTimeNanos - lastFrameTimeNanos) / 1_000_000.0;
+            int remaining = fullText.length() - currentIndex;
+            // 正常速度为每delayMillis一个字符，积压过多时加快，保证在MAX_CATCH_UP_MILLIS内追上
+            double charsPerMillis = Math.max(1.0 / Math.max(1, delayMillis), (double) remaining / MAX_CATCH_UP_MILLIS);
+            pendingChars += elapsedMillis * charsPerMillis;
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+
+        int reveal = (int) Math.min(pendingChars, fullText.length() - currentIndex);
+        if (reveal > 0) {
+            pendingChars -= reveal;
+            currentIndex += reveal;
+            showProgress();
+            if (progressKey != null) {
+                engine.saveProgress(progressKey, currentIndex);
+            }
+        }
+
         if (currentIndex < fullText.length()) {
-            // 添加下一个字符
-            textView.append(String.valueOf(fullText.charAt(currentIndex)));
-            currentIndex++;
-            // 延迟后继续显示下一个字符
-            handler.postDelayed(this::typeText, delayMillis);
-        } else {
-            // 动画完成，使用渲染器最终渲染文本
-            textRenderer.renderText(textView, fullText);
-            // 调用子类实现的完成方法
-            onComplete();
+            return true;
         }
+        if (!isTextComplete) {
+            // 已显示完当前收到的文本，等待后续增量到达
+            isWaitingForText = true;
+            pendingChars = 0;
+            return false;
+        }
+        finish();
+        return false;
     }
 
     /**
      * 取消打字机效果
      */
     public void cancel() {
-        // 移除所有待执行的回调
-        handler.removeCallbacksAndMessages(null);
+        engine.remove(this);
+        isWaitingForText = false;
         // 直接显示完整文本
+        finish();
+    }
+
+    /**
+     * 停止驱动但不显示完整文本，也不调用onComplete
+     * 用于ViewHolder被回收或改为显示其他消息，进度已按key记录，下次绑定同一消息时继续
+     */
+    public void detach() {
+        engine.remove(this);
+        isRunning = false;
+        isWaitingForText = false;
+    }
+
+    /**
+     * 动画完成，使用渲染器渲染完整文本
+     */
+    private void finish() {
+        isRunning = false;
+        if (progressKey != null) {
+            engine.clearProgress(progressKey);
+        }
+        // 动画完成，使用渲染器最终渲染文本
         textRenderer.renderText(textView, fullText);
         // 调用子类实现的完成方法
         onComplete();
     }
+
+    /**
+     * 设置完整文本，并隐藏尚未显示的部分
+     * 在开始和每次收到新文本时调用，子类可重写为其他显示方式
+     */
+    protected void showText() {
+        currentIndex = Math.min(currentIndex, fullText.length());
+        SpannableString text = new SpannableString(fullText);
+        if (currentIndex < fullText.length()) {
+            text.setSpan(hiddenSpan, currentIndex, fullText.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+        textView.setText(text, TextView.BufferType.SPANNABLE);
+    }
+
+    /**
+     * 显示进度前进后调用，默认移动隐藏span的起点，只触发重绘，不重新排版
+     * 子类可重写为其他显示方式
+     */
+    protected void showProgress() {
+        CharSequence text = textView.getText();
+        if (!(text instanceof Spannable) || text.length() != fullText.length()) {
+            // TextView的文本被外部替换，重新设置
+            showText();
+            return;
+        }
+        Spannable spannable = (Spannable) text;
+        if (currentIndex >= fullText.length()) {
+            spannable.removeSpan(hiddenSpan);
+        } else {
+            spannable.setSpan(hiddenSpan, currentIndex, fullText.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+    }
     
     /**
      * 动画完成时的钩子方法，子类可重写
      */
     protected void onComplete() {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,189 @@
+package com.example.demo.utils;
+
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.widget.TextView;
+
+import io.noties.markwon.Markwon;
+import io.noties.markwon.MarkwonPlugin;
+
+/**
+ * 增量Markdown渲染器
+ * 打字机逐步显示Markdown时使用：已经完整显示的块（以代码块之外的空行分隔）只渲染一次并追加到TextView，
+ * 每帧只重新渲染最后一个尚未结束的块，开销与该块已显示的长度成正比，而不是与整条消息的长度成正比
+ * TextView中的文本为Editable，只替换末尾的块，排版也只更新变化的段落
+ * 源文本只能在末尾追加（流式增量），否则需调用reset()重新开始
+ *
+ * 已知限制，完整显示后由调用方用setParsedMarkdown渲染整篇文本来修正：
+ * 1. 末尾的块每帧都从stableEnd重新解析，很长的单个块（没有空行的长段落、长代码块、长表格）每帧仍是O(块长度)
+ * 2. 插件的beforeSetText/afterSetText只在追加已完成的块时调用，每帧替换末尾的块时不调用，
+ *    末尾块中的有序列表编号宽度、表格行的重绘回调要等到下一次追加或最终渲染才生效
+ * 3. 每个块单独解析，引用式链接的定义出现在后面的块中时，前面块中的引用不会被解析为链接
+ */
+public class IncrementalMarkdownRenderer {
+    // 块之间的分隔，与Markwon渲染整篇文本时块之间的换行一致
+    private static final String BLOCK_SEPARATOR = "\n\n";
+
+    // Markwon实例
+    private final Markwon markwon;
+
+    // 正在更新的TextView文本，被外部替换时重新开始
+    private Editable displayed;
+
+    // 上一次渲染的源文本
+    private String lastText;
+
+    // 已完成块在源文本中的结束位置
+    private int stableEnd = 0;
+
+    // 已完成块渲染后的长度
+    private int renderedStableLength = 0;
+
+    // 下一次查找块边界的起点（某一行的行首）
+    private int scanFrom = 0;
+
+    // 扫描到scanFrom时是否位于代码块内
+    private boolean inFence = false;
+
+    /**
+     * 构造函数
+     * @param markwon Markwon实例
+     */
+    public IncrementalMarkdownRenderer(Markwon markwon) {
+        this.markwon = markwon;
+    }
+
+    /**
+     * 清除已渲染的块，下一次render时从头开始
+     */
+    public void reset() {
+        displayed = null;
+        lastText = null;
+        stableEnd = 0;
+        renderedStableLength = 0;
+        scanFrom = 0;
+        inFence = false;
+    }
+
+    /**
+     * 判断新的源文本是否只是在之前的基础上追加，可以继续增量渲染
+     * @param text 新的源文本
+     * @return 已完成的块没有变化时返回true
+     */
+    public boolean canContinue(String text) {
+        return lastText != null && text.regionMatches(0, lastText, 0, scanFrom);
+    }
+
+    /**
+     * 渲染源文本的前visibleLength个字符
+     * @param textView 目标TextView控件
+     * @param text 完整的源文本
+     * @param visibleLength 已显示的字符数
+     */
+    public void render(TextView textView, String text, int visibleLength) {
+        if (displayed == null || textView.getText() != displayed) {
+            reset();
+            textView.setText("", TextView.BufferType.EDITABLE);
+            displayed = (Editable) textView.getText();
+        }
+        lastText = text;
+
+        // 有新的完整块时，只渲染新增的块并追加在已完成的块之后
+        int boundary = findBlockBoundary(text, visibleLength);
+        if (boundary > stableEnd) {
+            Spanned blocks = markwon.toMarkdown(text.substring(stableEnd, boundary));
+            if (blocks.length() > 0) {
+                // 与setParsedMarkdown一样在设置前后调用插件，已完成块中的列表和表格正确显示
+                for (MarkwonPlugin plugin : markwon.getPlugins()) {
+                    plugin.beforeSetText(textView, displayed);
+                }
+                displayed.replace(renderedStableLength, displayed.length(), withSeparator(blocks));
+                renderedStableLength = displayed.length();
+                for (MarkwonPlugin plugin : markwon.getPlugins()) {
+                    plugin.afterSetText(textView);
+                }
+            }
+            stableEnd = boundary;
+        }
+
+        // 末尾尚未结束的块每次重新渲染
+        Spanned tail = visibleLength > stableEnd
+                ? markwon.toMarkdown(text.substring(stableEnd, visibleLength))
+                : null;
+        // 一次替换，只触发一次排版更新
+        displayed.replace(renderedStableLength, displayed.length(),
+                tail != null && tail.length() > 0 ? withSeparator(tail) : "");
+    }
+
+    /**
+     * 已有完成的块时在前面加上块分隔
+     * @param rendered 渲染后的块
+     * @return 要追加的内容
+     */
+    private CharSequence withSeparator(Spanned rendered) {
+        if (renderedStableLength == 0) {
+            return rendered;
+        }
+        return new SpannableStringBuilder(BLOCK_SEPARATOR).append(rendered);
+    }
+
+    /**
+     * 从上次扫描的位置继续查找块边界
+     * 边界为代码块之外的空行之后的下一行行首，下一行缩进（列表或代码的延续）时不算边界
+     * 只处理已完整显示的行，下一行的首字符尚未显示时等待
+     * @param text 完整的源文本
+     * @param visibleLength 已显示的字符数
+     * @return 最后一个块边界，没有新边界时返回stableEnd
+     */
+    private int findBlockBoundary(String text, int visibleLength) {
+        int boundary = stableEnd;
+        int lineStart = scanFrom;
+        while (true) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0 || lineEnd >= visibleLength) {
+                // 这一行还没有显示完整
+                break;
+            }
+            if (isFenceLine(text, lineStart, lineEnd)) {
+                inFence = !inFence;
+            } else if (!inFence && isBlankLine(text, lineStart, lineEnd)) {
+                int next = lineEnd + 1;
+                if (next >= visibleLength) {
+                    // 下一行的首字符还没有显示，暂不判断
+                    break;
+                }
+                char first = text.charAt(next);
+                if (first != ' ' && first != '\t' && first != '\n') {
+                    boundary = next;
+                }
+            }
+            lineStart = lineEnd + 1;
+            scanFrom = lineStart;
+        }
+        return boundary;
+    }
+
+    /**
+     * 判断是否为代码块的开始或结束行（最多缩进3个空格的```或~~~）
+     */
+    private static boolean isFenceLine(String text, int start, int end) {
+        int i = start;
+        while (i < end && i - start < 3 && text.charAt(i) == ' ') {
+            i++;
+        }
+        return text.startsWith("```", i) || text.startsWith("~~~", i);
+    }
+
+    /**
+     * 判断是否为空行（只包含空白字符）
+     */
+    private static boolean isBlankLine(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.demo.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Spanned;
+import android.text.style.ReplacementSpan;
+import android.util.LruCache;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+// Markwon库用于在Android中渲染Markdown文本
+import io.noties.markwon.Markwon;
+import io.noties.markwon.ext.strikethrough.StrikethroughPlugin;
+import io.noties.markwon.ext.tables.TablePlugin;
+import io.noties.markwon.ext.tasklist.TaskListPlugin;
+import io.noties.markwon.linkify.LinkifyPlugin;
+
+import org.commonmark.node.Node;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Markdown渲染缓存
+ * 应用内共用一个配置好插件的Markwon实例，并把解析后的语法树按内容缓存起来
+ * RecyclerView重新绑定已经显示过的消息或帖子时直接复用语法树，不再在主线程重复解析
+ * 表格行等span带有按TextView计算的尺寸和回调，不能在多个TextView间共用，因此每次绑定都从语法树重新生成Spanned
+ * 缓存按文本长度计算大小，超过上限时淘汰最久未使用的条目
+ * 适配器提交列表前可以调用prerender()在后台线程解析并排版（PrecomputedText），
+ * 绑定时只需setText，不再在主线程解析Markdown或测量文本
+ */
+public class MarkdownRenderCache {
+
+    // 缓存的总字符数上限
+    private static final int MAX_CACHED_CHARS = 256 * 1024;
+
+    // 渲染配置标识，修改插件组合时需同步修改，避免复用旧配置渲染的结果
+    private static final String CONFIG_KEY = "strikethrough+table+tasklist+linkify";
+
+    // 单例实例
+    private static MarkdownRenderCache instance;
+
+    // Markwon实例，使用Application的Context创建，可以在所有页面共用
+    private final Markwon markwon;
+
+    // 解析后的语法树缓存，key使用CONFIG_KEY；语法树渲染时只读，可以在多个线程上渲染
+    private final LruCache<CacheKey, ParsedMarkdown> parsedCache;
+
+    // 预先排版的结果缓存，key使用目标TextView的文本测量参数
+    // 只保存不含ReplacementSpan的文本，其余span（样式、链接、列表缩进）在相同测量参数下状态一致，可以共用
+    private final LruCache<CacheKey, Spanned> precomputedCache;
+
+    // 后台渲染线程，单线程保证提交顺序
+    private final ExecutorService renderExecutor = Executors.newSingleThreadExecutor();
+
+    // 主线程Handler，用于在渲染完成后回调
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * 私有构造函数，防止外部实例化
+     * @param context 应用上下文
+     */
+    private MarkdownRenderCache(Context context) {
+        // 初始化Markwon，配置各种插件支持Markdown特性
+        this.markwon = Markwon.builder(context)
+                .usePlugin(StrikethroughPlugin.create()) // 支持删除线
+                .usePlugin(TablePlugin.create(context)) // 支持表格
+                .usePlugin(TaskListPlugin.create(context)) // 支持任务列表
+                .usePlugin(LinkifyPlugin.create()) // 支持自动链接识别
+                .textSetter(MarkdownRenderCache::setText)
+                .build();
+        this.parsedCache = new LruCache<CacheKey, ParsedMarkdown>(MAX_CACHED_CHARS) {
+            @Override
+            protected int sizeOf(@NonNull CacheKey key, @NonNull ParsedMarkdown value) {
+                // 语法树大小与原文长度成正比，至少按1计算，空文本也占用一个条目
+                return Math.max(1, key.text.length());
+            }
+        };
+        this.precomputedCache = new LruCache<CacheKey, Spanned>(MAX_CACHED_CHARS) {
+            @Override
+            protected int sizeOf(@NonNull CacheKey key, @NonNull Spanned value) {
+                // 至少按1计算，空文本也占用一个条目
+                return Math.max(1, value.length());
+            }
+        };
+    }
+
+    /**
+     * 获取单例实例
+     * @param context 上下文
+     * @return MarkdownRenderCache的单例实例
+     */
+    public static synchronized MarkdownRenderCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new MarkdownRenderCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * 获取共用的Markwon实例
+     * @return Markwon实例
+     */
+    public Markwon getMarkwon() {
+        return markwon;
+    }
+
+    /**
+     * 渲染Markdown，命中缓存时跳过解析，只从语法树生成span
+     * 每次调用都返回新的Spanned，span实例不会被多个TextView共用
+     * @param markdown Markdown文本
+     * @return 渲染后的Spanned
+     */
+    public Spanned render(String markdown) {
+        String text = markdown != null ? markdown : "";
+        CacheKey key = new CacheKey(CONFIG_KEY, text);
+        ParsedMarkdown parsed = parsedCache.get(key);
+        if (parsed != null) {
+            return markwon.render(parsed.node);
+        }
+        Node node = markwon.parse(text);
+        Spanned spanned = markwon.render(node);
+        parsedCache.put(key, new ParsedMarkdown(node, hasReplacementSpans(spanned)));
+        return spanned;
+    }
+
+    /**
+     * 把Markdown渲染到TextView
+     * 已按该TextView的文本测量参数预先排版时直接使用排版结果，否则从（必要时现场解析的）语法树渲染
+     * @param textView 目标TextView控件
+     * @param markdown Markdown文本
+     */
+    public void setMarkdown(TextView textView, String markdown) {
+        String text = markdown != null ? markdown : "";
+        Spanned spanned = precomputedCache.get(new CacheKey(TextViewCompat.getTextMetricsParams(textView), text));
+        if (spanned == null) {
+            spanned = render(text);
+        }
+        // 使用setParsedMarkdown，插件仍会在设置前后处理表格等需要绑定TextView的内容，预先排版的结果由setText直接使用
+        markwon.setParsedMarkdown(textView, spanned);
+    }
+
+    /**
+     * 判断文本是否已预先渲染
+     * 含有表格等ReplacementSpan的文本只需解析过即可，它们不预先排版
+     * @param markdown Markdown文本
+     * @param params 目标TextView的文本测量参数，为null时只判断是否已解析
+     * @return 已渲染返回true
+     */
+    public boolean isPrerendered(String markdown, PrecomputedTextCompat.Params params) {
+        String text = markdown != null ? markdown : "";
+        ParsedMarkdown parsed = parsedCache.get(new CacheKey(CONFIG_KEY, text));
+        if (parsed == null) {
+            return false;
+        }
+        return params == null || parsed.layoutDependent || precomputedCache.get(new CacheKey(params, text)) != null;
+    }
+
+    /**
+     * 在后台线程解析并排版一批Markdown文本
+     * 同一线程按提交顺序执行，完成后在主线程回调
+     * @param markdowns Markdown文本
+     * @param params 目标TextView的文本测量参数，可通过TextViewCompat.getTextMetricsParams()获取；
+     *               还没有绑定过TextView、参数未知时传null，只解析不排版
+     * @param onComplete 全部完成后在主线程执行，可以为null
+     */
+    public void prerender(List<String> markdowns, PrecomputedTextCompat.Params params, Runnable onComplete) {
+        renderExecutor.execute(() -> {
+            for (String markdown : markdowns) {
+                precompute(markdown != null ? markdown : "", params);
+            }
+            if (onComplete != null) {
+                mainHandler.post(onComplete);
+            }
+        });
+    }
+
+    /**
+     * 解析并排版单个文本，在渲染线程执行
+     * 含有ReplacementSpan（如表格）的文本尺寸依赖TextView宽度，而且span不能共用，只解析不排版
+     * @param text Markdown文本
+     * @param params 目标TextView的文本测量参数，为null时只解析
+     */
+    private void precompute(String text, PrecomputedTextCompat.Params params) {
+        if (isPrerendered(text, params)) {
+            return;
+        }
+        Spanned spanned = render(text);
+        if (params != null && !hasReplacementSpans(spanned)) {
+            precomputedCache.put(new CacheKey(params, text), PrecomputedTextCompat.create(spanned, params));
+        }
+    }
+
+    /**
+     * Markwon设置文本的实现，插件的beforeSetText在调用前执行，afterSetText通过onComplete执行
+     * 预先排版的文本通过TextViewCompat.setPrecomputedText设置，TextView直接使用排版结果，不在主线程重新测量；
+     * 其他文本与Markwon默认的处理相同
+     * @param textView 目标TextView控件
+     * @param markdown 渲染结果
+     * @param bufferType 缓冲区类型
+     * @param onComplete 设置完成后执行
+     */
+    private static void setText(@NonNull TextView textView, @NonNull Spanned markdown,
+                                @NonNull TextView.BufferType bufferType, @NonNull Runnable onComplete) {
+        if (markdown instanceof PrecomputedTextCompat) {
+            TextViewCompat.setPrecomputedText(textView, (PrecomputedTextCompat) markdown);
+        } else {
+            textView.setText(markdown, bufferType);
+        }
+        onComplete.run();
+    }
+
+    /**
+     * 判断渲染结果是否含有ReplacementSpan
+     * @param spanned 渲染结果
+     * @return 含有时返回true
+     */
+    private static boolean hasReplacementSpans(Spanned spanned) {
+        return spanned.getSpans(0, spanned.length(), ReplacementSpan.class).length > 0;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        parsedCache.evictAll();
+        precomputedCache.evictAll();
+    }
+
+    /**
+     * 解析结果
+     */
+    private static class ParsedMarkdown {
+        // 语法树
+        final Node node;
+        // 渲染结果是否含有ReplacementSpan（如表格），这类文本尺寸依赖TextView宽度，不预先排版
+        final boolean layoutDependent;
+
+        ParsedMarkdown(Node node, boolean layoutDependent) {
+            this.node = node;
+            this.layoutDependent = layoutDependent;
+        }
+    }
+
+    /**
+     * 缓存key
+     * 直接引用原文本而不复制，哈希由String缓存，比较时按内容判断，不会因哈希冲突返回错误结果
+     */
+    private static class CacheKey {
+        // 渲染配置标识或文本测量参数
+        private final Object config;
+        // Markdown原文
+        private final String text;
+
+        CacheKey(Object config, String text) {
+            this.config = config;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return config.equals(other.config) && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * config.hashCode() + text.hashCode();
+        }
+    }
+}
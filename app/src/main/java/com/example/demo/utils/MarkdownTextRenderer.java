@@ -2,23 +2,22 @@ package com.example.demo.utils;
 
 import android.widget.TextView;
 
-import io.noties.markwon.Markwon;
-
 /**
  * Markdown文本渲染器实现类
  * 实现TextRenderer接口，使用Markwon库渲染Markdown格式的文本
  * 支持常见的Markdown语法，如标题、列表、加粗、斜体等
+ * 解析结果来自MarkdownRenderCache，相同文本只解析一次
  */
 public class MarkdownTextRenderer implements TextRenderer {
-    // Markwon实例，用于解析和渲染Markdown
-    private final Markwon markwon;
+    // Markdown渲染缓存，用于解析和渲染Markdown
+    private final MarkdownRenderCache markdownRenderCache;
 
     /**
      * 构造函数
-     * @param markwon Markwon实例
+     * @param markdownRenderCache Markdown渲染缓存
      */
-    public MarkdownTextRenderer(Markwon markwon) {
-        this.markwon = markwon;
+    public MarkdownTextRenderer(MarkdownRenderCache markdownRenderCache) {
+        this.markdownRenderCache = markdownRenderCache;
     }
 
     /**
@@ -29,6 +28,6 @@ public class MarkdownTextRenderer implements TextRenderer {
     @Override
     public void renderText(TextView textView, String text) {
         // 使用Markwon将Markdown文本渲染为Spanned并设置到TextView
-        markwon.setMarkdown(textView, text);
+        markdownRenderCache.setMarkdown(textView, text);
     }
 }
\ No newline at end of file
@@ -2,22 +2,47 @@ package com.example.demo.utils;
 
 import android.widget.TextView;
 
-import io.noties.markwon.Markwon;
-
 /**
  * Markdown打字机效果类
  * 继承BaseTypewriterEffect，实现Markdown格式的打字机效果
- * 在动画完成后使用MarkdownTextRenderer渲染最终文本
+ * 显示过程中使用IncrementalMarkdownRenderer按块增量渲染已显示的部分，不再显示**、~~等原始标记
+ * 在动画完成后使用MarkdownTextRenderer渲染最终文本：整篇文本通过Markwon.setParsedMarkdown设置，
+ * 插件的beforeSetText/afterSetText都会执行，跨块的引用式链接也能解析，增量渲染的限制在此时全部修正
  */
 public class MarkdownTypewriterEffect extends BaseTypewriterEffect {
+    // 增量渲染器，显示过程中只渲染新增的内容
+    private final IncrementalMarkdownRenderer incrementalRenderer;
+
     /**
      * 构造函数
      * @param textView 目标TextView控件
      * @param fullText 要显示的完整Markdown文本
      * @param delayMillis 每个字符显示的延迟时间
-     * @param markwon Markwon实例，用于渲染Markdown
+     * @param markdownRenderCache Markdown渲染缓存，用于渲染Markdown
+     */
+    public MarkdownTypewriterEffect(TextView textView, String fullText, long delayMillis, MarkdownRenderCache markdownRenderCache) {
+        super(textView, fullText, delayMillis, new MarkdownTextRenderer(markdownRenderCache));
+        this.incrementalRenderer = new IncrementalMarkdownRenderer(markdownRenderCache.getMarkwon());
+    }
+
+    /**
+     * 开始或收到新文本时调用
+     * 流式增量只在末尾追加，已渲染的块继续使用；文本被整体替换时重新渲染
+     */
+    @Override
+    protected void showText() {
+        currentIndex = Math.min(currentIndex, fullText.length());
+        if (!incrementalRenderer.canContinue(fullText)) {
+            incrementalRenderer.reset();
+        }
+        incrementalRenderer.render(textView, fullText, currentIndex);
+    }
+
+    /**
+     * 显示进度前进后调用，只渲染末尾尚未结束的块和新完成的块
      */
-    public MarkdownTypewriterEffect(TextView textView, String fullText, long delayMillis, Markwon markwon) {
-        super(textView, fullText, delayMillis, new MarkdownTextRenderer(markwon));
+    @Override
+    protected void showProgress() {
+        incrementalRenderer.render(textView, fullText, currentIndex);
     }
-}
\ No newline at end of file
+}
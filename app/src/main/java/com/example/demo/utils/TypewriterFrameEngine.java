@@ -0,0 +1,135 @@
+package com.example.demo.utils;
+
+import android.util.LruCache;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 打字机帧驱动引擎
+ * 所有正在进行的打字机效果共用一个Choreographer帧回调，每个垂直同步信号只执行一次，
+ * 各效果按距上一帧经过的时间决定本帧显示多少个字符
+ * 同时按消息ID记录已显示的字符数，ViewHolder被回收或重新绑定后可以从原位置继续
+ * 只能在主线程使用
+ */
+public class TypewriterFrameEngine implements Choreographer.FrameCallback {
+
+    /**
+     * 由引擎驱动的打字机效果
+     */
+    public interface Client {
+        /**
+         * 每帧调用一次
+         * @param frameTimeNanos 当前帧的时间（纳秒）
+         * @return 还需要后续帧时返回true，返回false后从引擎中移除
+         */
+        boolean onFrame(long frameTimeNanos);
+    }
+
+    // 最多记录多少条消息的显示进度
+    private static final int MAX_PROGRESS_ENTRIES = 128;
+
+    // 单例实例
+    private static TypewriterFrameEngine instance;
+
+    // 正在进行的打字机效果
+    private final List<Client> clients = new ArrayList<>();
+
+    // 每条消息已显示的字符数，key为消息ID
+    private final LruCache<String, Integer> progress = new LruCache<>(MAX_PROGRESS_ENTRIES);
+
+    // 是否已注册下一帧的回调
+    private boolean isFrameScheduled = false;
+
+    /**
+     * 私有构造函数，防止外部实例化
+     */
+    private TypewriterFrameEngine() {
+    }
+
+    /**
+     * 获取单例实例
+     * @return TypewriterFrameEngine的单例实例
+     */
+    public static TypewriterFrameEngine getInstance() {
+        if (instance == null) {
+            instance = new TypewriterFrameEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * 开始驱动打字机效果，已在驱动中时不重复添加
+     * @param client 打字机效果
+     */
+    public void add(Client client) {
+        if (!clients.contains(client)) {
+            clients.add(client);
+        }
+        scheduleFrame();
+    }
+
+    /**
+     * 停止驱动打字机效果
+     * @param client 打字机效果
+     */
+    public void remove(Client client) {
+        clients.remove(client);
+        if (clients.isEmpty() && isFrameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            isFrameScheduled = false;
+        }
+    }
+
+    /**
+     * 获取消息已显示的字符数
+     * @param key 消息ID
+     * @return 已显示的字符数，没有记录时为0
+     */
+    public int getProgress(String key) {
+        Integer count = progress.get(key);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 记录消息已显示的字符数
+     * @param key 消息ID
+     * @param count 已显示的字符数
+     */
+    public void saveProgress(String key, int count) {
+        progress.put(key, count);
+    }
+
+    /**
+     * 清除消息的显示进度，打字机效果完成后调用
+     * @param key 消息ID
+     */
+    public void clearProgress(String key) {
+        progress.remove(key);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        isFrameScheduled = false;
+        // 复制一份，回调中可能添加或移除效果
+        for (Client client : new ArrayList<>(clients)) {
+            if (!client.onFrame(frameTimeNanos)) {
+                clients.remove(client);
+            }
+        }
+        if (!clients.isEmpty()) {
+            scheduleFrame();
+        }
+    }
+
+    /**
+     * 注册下一帧的回调
+     */
+    private void scheduleFrame() {
+        if (!isFrameScheduled) {
+            isFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
@@ -64,7 +64,7 @@ public class SocialSquareViewModel extends AndroidViewModel {
         super(application);
         this.userPersonaRepository = UserPersonaRepository.getInstance(application);
         this.userFollowedListRepository = UserFollowedListRepository.getInstance(application);
-        this.userPersonaPostRepository = UserPersonaPostRepository.getInstance();
+        this.userPersonaPostRepository = UserPersonaPostRepository.getInstance(application);
         this.otherPersonaPostRepository = OtherPersonaPostRepository.getInstance();
 
         // “加工” userPersonasLiveData
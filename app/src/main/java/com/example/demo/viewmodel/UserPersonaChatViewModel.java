@@ -69,6 +69,31 @@ public class UserPersonaChatViewModel extends AndroidViewModel {
         userPersonaChatRepository.setCurrentPersona(currentPersona);
     }
     
+    /**
+     * 加载更早的一页聊天记录
+     * 用户滚动到聊天列表顶部时调用
+     */
+    public void loadOlderMessages() {
+        userPersonaChatRepository.loadOlderMessages();
+    }
+
+    /**
+     * 立即提交尚未写入数据库的聊天记录
+     * 聊天界面进入后台时调用
+     */
+    public void flushPendingWrites() {
+        userPersonaChatRepository.flushPendingWrites();
+    }
+
+    /**
+     * 界面销毁时取消仍在生成的回复
+     */
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        userPersonaChatRepository.cancelActiveRequests();
+    }
+    
     /**
      * 更新消息的打字机完成状态
      * @param messageId 消息ID
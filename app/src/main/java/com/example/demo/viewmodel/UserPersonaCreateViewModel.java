@@ -40,6 +40,8 @@ public class UserPersonaCreateViewModel extends AndroidViewModel {
         super(application);
         this.userPersonaRepository = UserPersonaRepository.getInstance(application);
         setupMediatorLiveData();
+        // 进入创建页面时预先生成一批人设，点击生成时可直接返回
+        userPersonaRepository.prefetchPersonas();
     }
     
     /**
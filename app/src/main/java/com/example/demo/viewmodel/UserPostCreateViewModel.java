@@ -8,12 +8,19 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.example.demo.model.UserPersona;
 import com.example.demo.model.Post;
+import com.example.demo.data.remote.ApiMetrics;
 import com.example.demo.data.repository.UserPersonaPostRepository;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 发布动态编辑页面的ViewModel
  * 负责管理编辑页面的业务逻辑
  * 包括AI扩展、AI生成和发布动态功能
+ * 打开页面和切换Persona时会在预算内预先生成一篇草稿，点击AI生成时可直接使用
  */
 public class UserPostCreateViewModel extends AndroidViewModel {
 
@@ -26,6 +33,24 @@ public class UserPostCreateViewModel extends AndroidViewModel {
     private final MutableLiveData<String> generatedContentLiveData = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isPublishedLiveData = new MutableLiveData<>(false);
 
+    // 预生成草稿的有效期（毫秒），过期后丢弃，避免使用过时的内容
+    private static final long DRAFT_TTL_MILLIS = 5 * 60 * 1000;
+
+    // 每次打开编辑页面最多发起的预生成请求数，用户不点击按钮时也不会持续消耗额度
+    private static final int MAX_PREFETCHES = 3;
+
+    // 已生成完成的草稿，key为Persona的id，由draftLock保护
+    private final Map<Long, Draft> prefetchedDrafts = new HashMap<>();
+
+    // 正在预生成的Persona，value为等待该结果的回调，由draftLock保护
+    private final Map<Long, List<UserPersonaPostRepository.ContentCallback>> inFlightPrefetches = new HashMap<>();
+
+    // 已发起的预生成请求数，由draftLock保护
+    private int prefetchCount = 0;
+
+    // 保护草稿缓存的锁，回调在网络线程上执行
+    private final Object draftLock = new Object();
+
     /**
      * 构造函数
      * 初始化所有仓库实例
@@ -33,7 +58,7 @@ public class UserPostCreateViewModel extends AndroidViewModel {
      */
     public UserPostCreateViewModel(Application application) {
         super(application);
-        this.userPersonaPostRepository = UserPersonaPostRepository.getInstance();
+        this.userPersonaPostRepository = UserPersonaPostRepository.getInstance(application);
     }
 
     /**
@@ -53,9 +78,11 @@ public class UserPostCreateViewModel extends AndroidViewModel {
         isLoadingLiveData.setValue(true);
 
         // 调用仓库的AI扩展方法
+        // 对同一内容重复点击扩展时直接使用缓存的结果
         userPersonaPostRepository.aiExpandContent(
                 persona,
                 currentContent,
+                true,
                 new UserPersonaPostRepository.ContentCallback() {
                     @Override
                     public void onSuccess(String content) {
@@ -89,27 +116,129 @@ public class UserPostCreateViewModel extends AndroidViewModel {
         // 设置加载状态为true
         isLoadingLiveData.setValue(true);
 
+        UserPersonaPostRepository.ContentCallback callback = new UserPersonaPostRepository.ContentCallback() {
+            @Override
+            public void onSuccess(String content) {
+                // 生成成功，更新内容
+                generatedContentLiveData.postValue(content);
+                isLoadingLiveData.postValue(false);
+            }
+
+            @Override
+            public void onError(String error) {
+                // 生成失败，更新错误信息
+                errorLiveData.postValue(error);
+                isLoadingLiveData.postValue(false);
+            }
+        };
+
+        String draft;
+        synchronized (draftLock) {
+            draft = takeDraftLocked(persona.getId());
+            if (draft == null) {
+                List<UserPersonaPostRepository.ContentCallback> waiting = inFlightPrefetches.get(persona.getId());
+                if (waiting != null) {
+                    // 预生成请求还在进行，等待它的结果而不是重复请求
+                    waiting.add(callback);
+                    ApiMetrics.getInstance().increment("draft_prefetch.joined");
+                    return;
+                }
+            }
+        }
+        if (draft != null) {
+            // 使用已经生成好的草稿
+            ApiMetrics.getInstance().increment("draft_prefetch.hit");
+            callback.onSuccess(draft);
+            return;
+        }
+
         // 调用仓库的AI生成方法
+        ApiMetrics.getInstance().increment("draft_prefetch.miss");
+        userPersonaPostRepository.aiGenerateContent(persona, callback);
+    }
+
+    /**
+     * 预先为Persona生成一篇草稿
+     * 在打开编辑页面和切换Persona时调用；已有可用草稿、正在生成或预算用完时不发起请求
+     * @param persona 当前选择的Persona
+     */
+    public void prefetchDraft(UserPersona persona) {
+        if (persona == null) {
+            return;
+        }
+        long personaId = persona.getId();
+        synchronized (draftLock) {
+            Draft draft = prefetchedDrafts.get(personaId);
+            if (draft != null && !draft.isExpired()) {
+                return;
+            }
+            if (inFlightPrefetches.containsKey(personaId)) {
+                return;
+            }
+            if (prefetchCount >= MAX_PREFETCHES) {
+                ApiMetrics.getInstance().increment("draft_prefetch.over_budget");
+                return;
+            }
+            prefetchCount++;
+            inFlightPrefetches.put(personaId, new ArrayList<>());
+        }
+        ApiMetrics.getInstance().increment("draft_prefetch.started");
+
         userPersonaPostRepository.aiGenerateContent(
                 persona,
                 new UserPersonaPostRepository.ContentCallback() {
                     @Override
                     public void onSuccess(String content) {
-                        // 生成成功，更新内容
-                        generatedContentLiveData.postValue(content);
-                        isLoadingLiveData.postValue(false);
+                        List<UserPersonaPostRepository.ContentCallback> waiting;
+                        synchronized (draftLock) {
+                            waiting = inFlightPrefetches.remove(personaId);
+                            if (waiting == null || waiting.isEmpty()) {
+                                // 没有人在等待，保存草稿供之后点击时使用
+                                prefetchedDrafts.put(personaId, new Draft(content, System.currentTimeMillis()));
+                                return;
+                            }
+                        }
+                        // 草稿只交给第一个等待者，其余的再各自请求
+                        waiting.get(0).onSuccess(content);
+                        for (int i = 1; i < waiting.size(); i++) {
+                            userPersonaPostRepository.aiGenerateContent(persona, waiting.get(i));
+                        }
                     }
 
                     @Override
                     public void onError(String error) {
-                        // 生成失败，更新错误信息
-                        errorLiveData.postValue(error);
-                        isLoadingLiveData.postValue(false);
+                        List<UserPersonaPostRepository.ContentCallback> waiting;
+                        synchronized (draftLock) {
+                            waiting = inFlightPrefetches.remove(personaId);
+                        }
+                        // 预生成失败时不提示，只通知等待中的点击
+                        if (waiting != null) {
+                            for (UserPersonaPostRepository.ContentCallback callback : waiting) {
+                                callback.onError(error);
+                            }
+                        }
                     }
                 }
         );
     }
 
+    /**
+     * 取出Persona的可用草稿，草稿只使用一次，调用方需持有draftLock
+     * @param personaId Persona的id
+     * @return 草稿内容，没有或已过期时返回null
+     */
+    private String takeDraftLocked(long personaId) {
+        Draft draft = prefetchedDrafts.remove(personaId);
+        if (draft == null) {
+            return null;
+        }
+        if (draft.isExpired()) {
+            ApiMetrics.getInstance().increment("draft_prefetch.expired");
+            return null;
+        }
+        return draft.content;
+    }
+
     /**
      * 发布动态
      * 将编辑框中的内容发布为新帖子
@@ -186,4 +315,23 @@ public class UserPostCreateViewModel extends AndroidViewModel {
     public void clearError() {
         errorLiveData.setValue(null);
     }
+
+    /**
+     * 预生成的草稿
+     */
+    private static class Draft {
+        // 草稿内容
+        private final String content;
+        // 生成完成的时间
+        private final long createdAtMillis;
+
+        Draft(String content, long createdAtMillis) {
+            this.content = content;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - createdAtMillis > DRAFT_TTL_MILLIS;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.example.demo.data.local;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ResponseCache的单元测试
+ * 验证构造时不访问磁盘，第一次读写时才加载已有条目
+ */
+public class ResponseCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void writeFile(File file, String content) throws IOException {
+        try (OutputStream output = new FileOutputStream(file)) {
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void constructor_doesNotTouchDisk() {
+        File directory = new File(folder.getRoot(), "cache");
+        new ResponseCache(directory, 1024, 60_000);
+        assertFalse(directory.exists());
+    }
+
+    @Test
+    public void firstAccess_createsDirectoryAndLoadsExistingEntries() throws IOException {
+        File directory = folder.newFolder("cache");
+        writeFile(new File(directory, "existing"), "缓存的回复");
+
+        ResponseCache cache = new ResponseCache(directory, 1024, 60_000);
+        assertEquals("缓存的回复", cache.get("existing"));
+
+        File missing = new File(folder.getRoot(), "missing");
+        ResponseCache fresh = new ResponseCache(missing, 1024, 60_000);
+        fresh.put("key", "value");
+        assertTrue(missing.isDirectory());
+        assertEquals("value", fresh.get("key"));
+    }
+
+    @Test
+    public void loadedEntries_countTowardsSizeLimit() throws IOException {
+        File directory = folder.newFolder("cache");
+        File old = new File(directory, "old");
+        writeFile(old, "0123456789");
+        old.setLastModified(System.currentTimeMillis() - 1_000);
+
+        ResponseCache cache = new ResponseCache(directory, 15, 60_000);
+        cache.put("new", "abcdefghij");
+
+        // 已有条目计入总大小，超出上限时先淘汰最久未使用的
+        assertFalse(old.exists());
+        assertNull(cache.get("old"));
+        assertEquals("abcdefghij", cache.get("new"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.data.remote;
+
+import com.example.demo.data.remote.model.ApiRequest;
+import com.example.demo.data.remote.model.ApiRequestMessage;
+import com.example.demo.data.remote.model.ApiResponseFormat;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * ApiRequestBody和ApiRequestMessage.getEncodedJson的单元测试
+ * 与Gson的输出对比，验证字节、长度和消息编码缓存
+ */
+public class ApiRequestBodyTest {
+
+    // 与ApiRequestBody一样不做HTML转义的Gson
+    private static final Gson GSON_NO_HTML_ESCAPING = new GsonBuilder().disableHtmlEscaping().create();
+
+    private static String write(ApiRequestBody body) throws IOException {
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        assertEquals(body.contentLength(), buffer.size());
+        return buffer.readUtf8();
+    }
+
+    private static List<ApiRequestMessage> sampleMessages() {
+        return new ArrayList<>(Arrays.asList(
+                new ApiRequestMessage("system", "你是一个<友好>的助手 & \"角色\""),
+                new ApiRequestMessage("user", "第一行\n第二行\t制表符 \\ 反斜杠   行分隔符"),
+                new ApiRequestMessage("assistant", "emoji 😀 和 </script>")));
+    }
+
+    @Test
+    public void writeTo_matchesGsonWithoutHtmlEscaping() throws IOException {
+        ApiRequest request = new ApiRequest("test-model", sampleMessages(), true);
+        request.setResponseFormat(new ApiResponseFormat(ApiResponseFormat.TYPE_JSON_OBJECT));
+
+        assertEquals(GSON_NO_HTML_ESCAPING.toJson(request), write(new ApiRequestBody(request)));
+    }
+
+    @Test
+    public void writeTo_omitsNullFieldsLikeGson() throws IOException {
+        List<ApiRequestMessage> messages = new ArrayList<>();
+        messages.add(new ApiRequestMessage("user", null));
+        ApiRequest request = new ApiRequest(null, messages);
+
+        String json = write(new ApiRequestBody(request));
+        assertEquals(GSON_NO_HTML_ESCAPING.toJson(request), json);
+        assertEquals("{\"messages\":[{\"role\":\"user\"}]}", json);
+    }
+
+    @Test
+    public void writeTo_emptyMessages() throws IOException {
+        ApiRequest request = new ApiRequest("test-model", new ArrayList<>());
+        assertEquals("{\"model\":\"test-model\",\"messages\":[]}", write(new ApiRequestBody(request)));
+    }
+
+    @Test
+    public void writeTo_isSemanticallyEqualToDefaultGson() throws IOException {
+        // 默认Gson会把<、>、&转义为Unicode转义序列，字节不同但解析结果相同
+        ApiRequest request = new ApiRequest("test-model", sampleMessages(), false);
+        String expected = new Gson().toJson(request);
+        String actual = write(new ApiRequestBody(request));
+
+        assertNotEquals(expected, actual);
+        assertEquals(JsonParser.parseString(expected), JsonParser.parseString(actual));
+    }
+
+    @Test
+    public void getEncodedJson_isCachedAndInvalidatedOnChange() {
+        ApiRequestMessage message = new ApiRequestMessage("user", "你好");
+        assertEquals("{\"role\":\"user\",\"content\":\"你好\"}", message.getEncodedJson().utf8());
+        assertSame(message.getEncodedJson(), message.getEncodedJson());
+
+        message.setContent("再见");
+        assertEquals("{\"role\":\"user\",\"content\":\"再见\"}", message.getEncodedJson().utf8());
+
+        message.setRole("assistant");
+        assertEquals("{\"role\":\"assistant\",\"content\":\"再见\"}", message.getEncodedJson().utf8());
+    }
+
+    @Test
+    public void writeTo_canBeRepeatedForRetries() throws IOException {
+        ApiRequestBody body = new ApiRequestBody(new ApiRequest("test-model", sampleMessages()));
+        assertEquals(write(body), write(body));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.data.remote;
+
+import com.example.demo.data.remote.model.ApiResponse;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * ApiResponseParser的单元测试
+ * 验证正常响应只取出需要的字段，格式错误的响应统一抛出IOException
+ */
+public class ApiResponseParserTest {
+
+    private static ApiResponse parse(String json) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            return ApiResponseParser.parse(reader);
+        }
+    }
+
+    private static void assertMalformed(String json) {
+        try {
+            parse(json);
+            fail("应抛出IOException: " + json);
+        } catch (IOException expected) {
+            // 格式错误按读取失败处理
+        }
+    }
+
+    @Test
+    public void parse_readsFirstChoiceAndUsage() throws IOException {
+        ApiResponse response = parse("{\"id\":\"x\",\"choices\":["
+                + "{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"你好\"}},"
+                + "{\"index\":1,\"message\":{\"role\":\"assistant\",\"content\":\"忽略\"}}],"
+                + "\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":3,\"total_tokens\":15},"
+                + "\"extra\":{\"nested\":[1,2,3]}}");
+
+        assertEquals("你好", response.getFirstMessageContent());
+        assertEquals(12, response.getUsage().getPromptTokens());
+        assertEquals(3, response.getUsage().getCompletionTokens());
+        assertEquals(15, response.getUsage().getTotalTokens());
+    }
+
+    @Test
+    public void parse_toleratesMissingOrNullFields() throws IOException {
+        ApiResponse response = parse("{\"choices\":[{\"message\":{\"content\":null}}],\"usage\":null}");
+        assertNull(response.getFirstMessageContent());
+        assertNull(response.getUsage());
+
+        response = parse("{\"choices\":[]}");
+        assertNull(response.getFirstMessageContent());
+    }
+
+    @Test
+    public void parse_htmlErrorPage_throwsIOException() {
+        assertMalformed("<html><body>502 Bad Gateway</body></html>");
+    }
+
+    @Test
+    public void parse_nonObjectBody_throwsIOException() {
+        assertMalformed("[{\"choices\":[]}]");
+        assertMalformed("\"error\"");
+        assertMalformed("{\"choices\":[{\"message\":{\"content\":\"x\"}}],\"usage\":{\"prompt_tokens\":1.5}}");
+    }
+
+    @Test
+    public void parse_truncatedBody_throwsIOException() {
+        assertMalformed("");
+        assertMalformed("{\"choices\":[{\"message\":{\"content\":\"被截");
+        assertMalformed("{\"choices\":[{\"message\":{\"content\":\"x\"}}]");
+    }
+}
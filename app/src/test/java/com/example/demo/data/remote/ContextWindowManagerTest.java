@@ -0,0 +1,154 @@
+package com.example.demo.data.remote;
+
+import com.example.demo.data.remote.model.ApiRequest;
+import com.example.demo.data.remote.model.ApiRequestMessage;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ContextWindowManager的单元测试
+ * 验证长对话中每轮请求的大小保持平稳，以及裁剪时保留system消息和最新消息
+ */
+public class ContextWindowManagerTest {
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * 第n轮的用户消息，中英文混合，长度随轮次变化
+     */
+    private static String userText(int turn) {
+        StringBuilder text = new StringBuilder("第" + turn + "轮：今天我们聊聊 Android performance 吧，");
+        for (int i = 0; i < turn % 5; i++) {
+            text.append("再补充一句 some more context。");
+        }
+        return text.toString();
+    }
+
+    /**
+     * 第n轮的助手回复
+     */
+    private static String assistantText(int turn) {
+        return "好的，这是第" + turn + "轮的回复。RecyclerView 的 DiffUtil 可以在后台线程计算差异，"
+                + "然后在主线程 dispatchUpdatesTo，避免 onBindViewHolder 中做重活。";
+    }
+
+    /**
+     * 按发送给API时的方式序列化请求，返回字节数
+     */
+    private static int payloadSize(List<ApiRequestMessage> history) {
+        ApiRequest request = new ApiRequest("test-model", new ArrayList<>(history));
+        return GSON.toJson(request).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Test
+    public void trim_payloadSizeStaysFlatAcross1000Turns() {
+        ContextWindowManager manager = new ContextWindowManager(ContextWindowManager.DEFAULT_TOKEN_BUDGET);
+        List<ApiRequestMessage> history = new ArrayList<>();
+        history.add(new ApiRequestMessage("system", "你是一个乐于助人的人设，请用简洁的中文回答。"));
+
+        int[] sizes = new int[1000];
+        int maxTokens = 0;
+        for (int turn = 0; turn < 1000; turn++) {
+            history.add(new ApiRequestMessage("user", userText(turn)));
+            manager.trim(history);
+            sizes[turn] = payloadSize(history);
+            maxTokens = Math.max(maxTokens, ContextWindowManager.estimateTokens(history));
+            history.add(new ApiRequestMessage("assistant", assistantText(turn)));
+        }
+
+        // 任何一轮都不超过token预算
+        assertTrue("超出预算: " + maxTokens, maxTokens <= ContextWindowManager.DEFAULT_TOKEN_BUDGET);
+        assertEquals("system", history.get(0).getRole());
+
+        // 达到预算之后，请求大小在一个固定范围内波动，不随轮次增长
+        int plateauMin = Integer.MAX_VALUE;
+        int plateauMax = 0;
+        for (int turn = 200; turn < 1000; turn++) {
+            plateauMin = Math.min(plateauMin, sizes[turn]);
+            plateauMax = Math.max(plateauMax, sizes[turn]);
+        }
+        assertTrue("请求大小随轮次增长: " + plateauMin + " ~ " + plateauMax,
+                plateauMax - plateauMin < plateauMax / 10);
+        // 最后100轮的平均大小与第200~300轮基本相同
+        assertTrue(Math.abs(average(sizes, 900, 1000) - average(sizes, 200, 300)) < plateauMax / 20.0);
+    }
+
+    @Test
+    public void trim_keepsSystemMessagesAndLatestMessage() {
+        ContextWindowManager manager = new ContextWindowManager(30);
+        ApiRequestMessage persona = new ApiRequestMessage("system", "人设");
+        ApiRequestMessage summary = new ApiRequestMessage("system", "摘要");
+        ApiRequestMessage latest = new ApiRequestMessage("user", longText(100));
+        List<ApiRequestMessage> history = new ArrayList<>(List.of(persona, summary,
+                new ApiRequestMessage("user", "早先的问题"),
+                new ApiRequestMessage("assistant", "早先的回答"),
+                latest));
+
+        List<ApiRequestMessage> removed = manager.trim(history);
+
+        // 即使最新消息本身超出预算也不会被移除
+        assertEquals(List.of(persona, summary, latest), history);
+        assertEquals(2, removed.size());
+        assertEquals("早先的问题", removed.get(0).getContent());
+        assertEquals("早先的回答", removed.get(1).getContent());
+    }
+
+    @Test
+    public void trim_dropsLeadingAssistantReplyAfterCut() {
+        // 移除第一个提问后已在预算以内，开头剩下的assistant回复也需要移除
+        ContextWindowManager manager = new ContextWindowManager(45);
+        ApiRequestMessage latestQuestion = new ApiRequestMessage("user", "新的问题");
+        List<ApiRequestMessage> history = new ArrayList<>(List.of(
+                new ApiRequestMessage("system", "人设"),
+                new ApiRequestMessage("user", longText(30)),
+                new ApiRequestMessage("assistant", "回答一"),
+                new ApiRequestMessage("user", longText(10)),
+                new ApiRequestMessage("assistant", "回答二"),
+                latestQuestion));
+
+        List<ApiRequestMessage> removed = manager.trim(history);
+
+        assertEquals("system", history.get(0).getRole());
+        assertEquals("user", history.get(1).getRole());
+        assertSame(latestQuestion, history.get(history.size() - 1));
+        assertEquals(2, removed.size());
+        assertEquals("assistant", removed.get(1).getRole());
+        assertEquals(4, history.size());
+    }
+
+    @Test
+    public void trim_withinBudget_removesNothing() {
+        ContextWindowManager manager = new ContextWindowManager(1000);
+        List<ApiRequestMessage> history = new ArrayList<>(List.of(
+                new ApiRequestMessage("system", "人设"),
+                new ApiRequestMessage("user", "你好")));
+
+        assertTrue(manager.trim(history).isEmpty());
+        assertEquals(2, history.size());
+    }
+
+    private static String longText(int chars) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < chars; i++) {
+            text.append('字');
+        }
+        return text.toString();
+    }
+
+    private static double average(int[] values, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return (double) sum / (to - from);
+    }
+}
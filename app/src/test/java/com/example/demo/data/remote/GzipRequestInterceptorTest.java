@@ -0,0 +1,93 @@
+package com.example.demo.data.remote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * GzipRequestInterceptor的单元测试
+ * 验证只有服务器因压缩拒绝请求时才回退为不压缩
+ */
+public class GzipRequestInterceptorTest {
+
+    private MockWebServer server;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient.Builder()
+                .addInterceptor(new GzipRequestInterceptor(true, 16))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private int post() throws IOException {
+        RequestBody body = RequestBody.create("{\"messages\":[\"足够长的请求体，超过压缩阈值\"]}",
+                MediaType.get("application/json; charset=UTF-8"));
+        Request request = new Request.Builder().url(server.url("/v1/chat/completions")).post(body).build();
+        try (Response response = client.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+
+    @Test
+    public void unsupportedMediaType_retriesUncompressedAndDisablesCompression() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(415));
+        server.enqueue(new MockResponse().setBody("ok"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        assertEquals(200, post());
+        assertEquals("gzip", server.takeRequest().getHeader("Content-Encoding"));
+        assertNull(server.takeRequest().getHeader("Content-Encoding"));
+
+        // 之后的请求不再压缩
+        assertEquals(200, post());
+        assertNull(server.takeRequest().getHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void badRequestMentioningEncoding_retriesUncompressed() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400)
+                .setBody("{\"error\":{\"message\":\"unsupported Content-Encoding: gzip\"}}"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        assertEquals(200, post());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void unrelatedBadRequest_isNotRetriedAndKeepsCompression() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400)
+                .setBody("{\"error\":{\"message\":\"context length exceeded\"}}"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        assertEquals(400, post());
+        assertEquals(1, server.getRequestCount());
+        server.takeRequest();
+
+        // 压缩仍然开启
+        assertEquals(200, post());
+        RecordedRequest next = server.takeRequest();
+        assertEquals("gzip", next.getHeader("Content-Encoding"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.data.remote;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * JsonExtractor.extractObjectText的单元测试
+ * 验证能从代码块和说明文字中取出第一个完整的JSON对象
+ * parseObject依赖org.json，在JVM单元测试中只有空实现，这里不覆盖
+ */
+public class JsonExtractorTest {
+
+    @Test
+    public void extractObjectText_plainObject() {
+        assertEquals("{\"content\":\"你好\"}", JsonExtractor.extractObjectText("{\"content\":\"你好\"}"));
+    }
+
+    @Test
+    public void extractObjectText_stripsCodeFenceAndProse() {
+        String reply = "好的，下面是生成的人设：\n```json\n{\"personas\":[{\"name\":\"阿青\"}]}\n```\n希望你喜欢！";
+        assertEquals("{\"personas\":[{\"name\":\"阿青\"}]}", JsonExtractor.extractObjectText(reply));
+    }
+
+    @Test
+    public void extractObjectText_ignoresBracesAndEscapedQuotesInStrings() {
+        String object = "{\"content\":\"用 \\\"}\\\" 结束，代码 `if (a) { b(); }` 也可以\",\"n\":{\"x\":1}}";
+        assertEquals(object, JsonExtractor.extractObjectText("前缀 " + object + " 后缀 }"));
+    }
+
+    @Test
+    public void extractObjectText_skipsUnbalancedStartAndFindsLaterObject() {
+        // 第一个左花括号没有配对，从下一个左花括号重新开始
+        assertEquals("{\"a\":1}", JsonExtractor.extractObjectText("{ 被截断的开头 {\"a\":1}"));
+    }
+
+    @Test
+    public void extractObjectText_returnsNullWhenNoCompleteObject() {
+        assertNull(JsonExtractor.extractObjectText("没有JSON"));
+        assertNull(JsonExtractor.extractObjectText("{\"content\":\"被截断"));
+        assertNull(JsonExtractor.extractObjectText("只有右括号 }"));
+        assertNull(JsonExtractor.extractObjectText(""));
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.demo.data.remote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Date;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.internal.http.DatesKt;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * RetryInterceptor的单元测试
+ * 覆盖Retry-After解析、可重试的状态码、熔断计数和退避期间的取消
+ */
+public class RetryInterceptorTest {
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private OkHttpClient client(int maxRetries, CircuitBreaker circuitBreaker) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(new RetryInterceptor(maxRetries, circuitBreaker))
+                .build();
+    }
+
+    private Call newCall(OkHttpClient client) {
+        return client.newCall(new Request.Builder().url(server.url("/v1/chat/completions")).build());
+    }
+
+    private static Response responseWithRetryAfter(String value) {
+        Response.Builder builder = new Response.Builder()
+                .request(new Request.Builder().url("https://example.com/").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(429)
+                .message("Too Many Requests");
+        if (value != null) {
+            builder.header("Retry-After", value);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void parseRetryAfterMillis_readsSecondsAndHttpDates() {
+        assertEquals(3000, RetryInterceptor.parseRetryAfterMillis(responseWithRetryAfter("3")));
+        assertEquals(0, RetryInterceptor.parseRetryAfterMillis(responseWithRetryAfter("-5")));
+        assertEquals(-1, RetryInterceptor.parseRetryAfterMillis(responseWithRetryAfter(null)));
+        assertEquals(-1, RetryInterceptor.parseRetryAfterMillis(responseWithRetryAfter("soon")));
+
+        String date = DatesKt.toHttpDateString(new Date(System.currentTimeMillis() + 10_000));
+        long millis = RetryInterceptor.parseRetryAfterMillis(responseWithRetryAfter(date));
+        // HTTP日期精确到秒
+        assertTrue("解析结果: " + millis, millis > 8_000 && millis <= 10_000);
+
+        String past = DatesKt.toHttpDateString(new Date(System.currentTimeMillis() - 60_000));
+        assertEquals(0, RetryInterceptor.parseRetryAfterMillis(responseWithRetryAfter(past)));
+    }
+
+    @Test
+    public void isRetryable_coversRateLimitAndServerErrors() {
+        assertTrue(RetryInterceptor.isRetryable(429));
+        assertTrue(RetryInterceptor.isRetryable(500));
+        assertTrue(RetryInterceptor.isRetryable(503));
+        assertFalse(RetryInterceptor.isRetryable(501));
+        assertFalse(RetryInterceptor.isRetryable(400));
+        assertFalse(RetryInterceptor.isRetryable(200));
+    }
+
+    @Test
+    public void serverError_isRetriedUntilSuccess() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(500).setHeader("Retry-After", "0"));
+        server.enqueue(new MockResponse().setResponseCode(502).setHeader("Retry-After", "0"));
+        server.enqueue(new MockResponse().setBody("ok"));
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 30_000);
+
+        try (Response response = newCall(client(3, circuitBreaker)).execute()) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(3, server.getRequestCount());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    // OkHttp自身会重试带Retry-After: 0的503，这里用502避免干扰计数
+    @Test
+    public void exhaustedRetries_countAsOneBreakerFailurePerCall() throws IOException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 30_000);
+        OkHttpClient client = client(3, circuitBreaker);
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(502).setHeader("Retry-After", "0"));
+        }
+
+        try (Response response = newCall(client).execute()) {
+            assertEquals(502, response.code());
+        }
+        // 4次尝试只算一次失败，未达到阈值
+        assertEquals(4, server.getRequestCount());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(502).setHeader("Retry-After", "0"));
+        }
+        newCall(client).execute().close();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void rateLimited_doesNotOpenBreaker() throws IOException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 30_000);
+        OkHttpClient client = client(3, circuitBreaker);
+        for (int i = 0; i < 8; i++) {
+            server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "0"));
+        }
+
+        newCall(client).execute().close();
+        newCall(client).execute().close();
+
+        assertEquals(8, server.getRequestCount());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void cancelDuringBackoff_failsPromptly() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "10"));
+        server.enqueue(new MockResponse().setBody("ok"));
+        Call call = newCall(client(3, new CircuitBreaker(5, 30_000)));
+
+        Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException ignored) {
+                return;
+            }
+            call.cancel();
+        });
+        canceller.start();
+        long start = System.currentTimeMillis();
+        try {
+            call.execute().close();
+            fail("取消的调用不应返回响应");
+        } catch (IOException expected) {
+            // 不会等满10秒的Retry-After
+            assertTrue(System.currentTimeMillis() - start < 2_000);
+        }
+        canceller.join();
+        assertEquals(1, server.getRequestCount());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.data.remote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * StreamingChatClient的SSE解析测试
+ * 通过MockWebServer按小块回放SSE响应，验证增量按事件回调
+ */
+public class StreamingChatClientTest {
+
+    private MockWebServer server;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    /**
+     * 生成一个只包含增量内容的数据块
+     */
+    private static String chunk(String delta) {
+        return "{\"choices\":[{\"delta\":{\"content\":\"" + delta + "\"}}]}";
+    }
+
+    /**
+     * 通过MockWebServer回放SSE响应并解析，每次只发送几个字节，模拟分块到达
+     */
+    private String replay(String sse, List<String> deltas) throws IOException {
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setChunkedBody(sse, 7));
+        Request request = new Request.Builder().url(server.url("/chat/completions")).build();
+        try (Response response = client.newCall(request).execute()) {
+            return StreamingChatClient.readEvents(response.body().source(), deltas::add);
+        }
+    }
+
+    @Test
+    public void readEvents_deliversDeltasInOrderUntilDone() throws IOException {
+        List<String> deltas = new ArrayList<>();
+        String sse = "data: " + chunk("你好") + "\n\n"
+                + "data: " + chunk(", world") + "\n\n"
+                + "data: [DONE]\n\n"
+                + "data: " + chunk("结束标记之后的内容") + "\n\n";
+
+        String content = replay(sse, deltas);
+
+        assertEquals("你好, world", content);
+        assertEquals(List.of("你好", ", world"), deltas);
+    }
+
+    @Test
+    public void readEvents_joinsMultiLineDataFields() throws IOException {
+        List<String> deltas = new ArrayList<>();
+        // 一个JSON数据块拆成多个data行发送
+        String sse = "data: {\"choices\":[\n"
+                + "data: {\"delta\":{\"content\":\"多行\"}}\n"
+                + "data: ]}\n\n"
+                + "data: [DONE]\n\n";
+
+        String content = replay(sse, deltas);
+
+        assertEquals("多行", content);
+        assertEquals(List.of("多行"), deltas);
+    }
+
+    @Test
+    public void readEvents_ignoresCommentsAndOtherFields() throws IOException {
+        List<String> deltas = new ArrayList<>();
+        String sse = ": keep-alive\n\n"
+                + "event: message\n"
+                + "id: 1\n"
+                + "data:" + chunk("a") + "\n\n"
+                + ":\n"
+                + "retry: 1000\n\n"
+                + "data: " + chunk("b") + "\r\n\r\n"
+                + "data: [DONE]\n\n";
+
+        String content = replay(sse, deltas);
+
+        assertEquals("ab", content);
+        assertEquals(List.of("a", "b"), deltas);
+    }
+
+    @Test
+    public void readEvents_acceptsDoneWithoutTrailingBlankLine() throws IOException {
+        List<String> deltas = new ArrayList<>();
+        String sse = "data: " + chunk("x") + "\n\ndata: [DONE]";
+
+        assertEquals("x", replay(sse, deltas));
+    }
+
+    @Test
+    public void readEvents_streamCutOffMidEvent_throwsAfterDeliveringCompleteEvents() throws IOException {
+        List<String> deltas = new ArrayList<>();
+        // 第二个事件只发送了一半，连接就关闭了
+        String sse = "data: " + chunk("完整") + "\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"con";
+
+        try {
+            replay(sse, deltas);
+            fail("流在结束标记之前中断时应抛出IOException");
+        } catch (IOException expected) {
+            // 中断前已完整到达的事件仍然回调
+            assertEquals(List.of("完整"), deltas);
+        }
+    }
+
+    @Test
+    public void readEvents_malformedChunk_throwsIOException() {
+        Buffer source = new Buffer().writeUtf8("data: {not json\n\n");
+        try {
+            StreamingChatClient.readEvents(source, delta -> { });
+            fail("无法解析的数据块应抛出IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("{not json"));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.data.repository;
+
+import com.example.demo.data.remote.ApiRequestBody;
+import com.example.demo.data.remote.model.ApiRequest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 人设和动态生成请求的单元测试
+ * 验证请求不携带历史，反复生成时请求体大小保持不变
+ */
+public class GenerationRequestTest {
+
+    // 连续生成的次数
+    private static final int GENERATIONS = 200;
+
+    private static final List<String> THEMES = Arrays.asList("科幻", "悬疑", "田园", "蒸汽朋克", "武侠");
+
+    private static long sizeOf(ApiRequest request) {
+        return new ApiRequestBody(request).contentLength();
+    }
+
+    @Test
+    public void personaBatchRequest_sizeStaysConstantAcrossGenerations() {
+        RecentValues recentNames = new RecentValues(10);
+        List<Long> sizes = new ArrayList<>();
+        for (int generation = 0; generation < GENERATIONS; generation++) {
+            ApiRequest request = UserPersonaRepository.buildPersonaBatchRequest(THEMES, recentNames.snapshot());
+            assertEquals(2, request.getMessages().size());
+            sizes.add(sizeOf(request));
+            // 每批生成5个等长的新名称
+            for (int i = 0; i < 5; i++) {
+                recentNames.add(String.format("角色%05d", generation * 5 + i));
+            }
+        }
+
+        // 最近名称列表填满（两批）之后，请求大小不再变化
+        long steadySize = sizes.get(2);
+        for (int generation = 2; generation < GENERATIONS; generation++) {
+            assertEquals("第" + generation + "次生成", steadySize, (long) sizes.get(generation));
+        }
+    }
+
+    @Test
+    public void postRequest_sizeStaysConstantAcrossGenerations() {
+        String userPrompt = "请用这个角色的口吻，写一条全新的、有趣的社交媒体动态。(请求编号: 1234)";
+        long firstSize = sizeOf(UserPersonaPostRepository.buildRequest(userPrompt));
+        for (int generation = 1; generation < GENERATIONS; generation++) {
+            ApiRequest request = UserPersonaPostRepository.buildRequest(userPrompt);
+            assertEquals(2, request.getMessages().size());
+            assertEquals(firstSize, sizeOf(request));
+        }
+    }
+
+    @Test
+    public void systemMessage_isSharedSoItsEncodingIsCached() {
+        ApiRequest first = UserPersonaPostRepository.buildRequest("a");
+        ApiRequest second = UserPersonaPostRepository.buildRequest("b");
+        assertSame(first.getMessages().get(0), second.getMessages().get(0));
+        assertSame(first.getMessages().get(0).getEncodedJson(), second.getMessages().get(0).getEncodedJson());
+
+        ApiRequest persona1 = UserPersonaRepository.buildPersonaBatchRequest(THEMES, new ArrayList<>());
+        ApiRequest persona2 = UserPersonaRepository.buildPersonaBatchRequest(THEMES, new ArrayList<>());
+        assertSame(persona1.getMessages().get(0), persona2.getMessages().get(0));
+    }
+}
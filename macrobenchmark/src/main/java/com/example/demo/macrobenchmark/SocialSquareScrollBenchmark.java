@@ -0,0 +1,76 @@
+package com.example.demo.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * 社交广场滑动宏基准测试
+ * 启动benchmark构建的应用并注入500条富文本帖子，快速滑动列表，用FrameTimingMetric记录帧耗时和超时帧
+ * 帖子正文在提交列表前由MarkdownRenderCache在后台解析和排版，绑定时只需setText
+ * 与预先渲染之前的版本对比frameOverrunMs的P90/P99即可看出掉帧的变化
+ * 运行：./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class SocialSquareScrollBenchmark {
+
+    // 被测应用的包名
+    private static final String PACKAGE_NAME = "com.example.demo";
+
+    // 注入的帖子数量
+    private static final int POST_COUNT = 500;
+
+    // 每轮测量的滑动次数
+    private static final int FLING_COUNT = 12;
+
+    // 等待列表出现的超时时间（毫秒）
+    private static final long LIST_TIMEOUT_MILLIS = 5000;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void scrollRichPosts() {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                CompilationMode.DEFAULT,
+                StartupMode.COLD,
+                5,
+                scope -> {
+                    // 与MainActivity.EXTRA_BENCHMARK_POST_COUNT一致
+                    scope.startActivityAndWait(intent -> {
+                        intent.putExtra("benchmark_post_count", POST_COUNT);
+                        return Unit.INSTANCE;
+                    });
+                    scope.getDevice().wait(Until.hasObject(By.res(PACKAGE_NAME, "rvSocialSquare")), LIST_TIMEOUT_MILLIS);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiDevice device = scope.getDevice();
+                    UiObject2 list = device.findObject(By.res(PACKAGE_NAME, "rvSocialSquare"));
+                    // 避开边缘手势区域，防止触发系统返回手势
+                    list.setGestureMargin(device.getDisplayWidth() / 5);
+                    for (int i = 0; i < FLING_COUNT; i++) {
+                        list.fling(Direction.DOWN);
+                        device.waitForIdle();
+                    }
+                    return Unit.INSTANCE;
+                });
+    }
+}
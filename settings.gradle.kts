@@ -20,4 +20,5 @@ dependencyResolutionManagement {
 }
 
 rootProject.name = "Persona"
-include(":app")
\ No newline at end of file
+include(":app")
+include(":macrobenchmark")
\ No newline at end of file